@@ -0,0 +1,56 @@
+package com.easy.benchmark;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.detector.Detector;
+import com.easy.detection.detector.SmellReason;
+import com.easy.detection.output.AnalyzedDataHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detection and metrics output on a fully processed project.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DetectionBenchmark {
+
+    @State(Scope.Thread)
+    public static class ProcessedProjectState {
+        Context ctx;
+        String resultsPath;
+
+        @Setup
+        public void setUp(SyntheticProjectState project) throws IOException {
+            ctx = project.readProject();
+            resultsPath = Files.createDirectories(project.workDir.resolve("results")).toString();
+        }
+    }
+
+    @Benchmark
+    public Map<FeatureReference, List<SmellReason>> perform(ProcessedProjectState state) {
+        return new Detector(state.ctx).Perform();
+    }
+
+    @Benchmark
+    public void saveCsvResults(ProcessedProjectState state) {
+        new AnalyzedDataHandler(state.ctx).SaveCsvResults(state.resultsPath);
+    }
+}
@@ -0,0 +1,126 @@
+package com.easy.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line front end of {@link SyntheticProject}, e.g., for generating projects for soak tests of Skunk:
+ * <pre>
+ * java -cp benchmarks.jar com.easy.benchmark.GenerateSyntheticProject --files 50000 --features 10000 DIR
+ * java -jar Skunk.jar --source DIR ...
+ * </pre>
+ */
+public class GenerateSyntheticProject {
+    private static final String OPT_HELP = "help";
+    private static final String OPT_FILES = "files";
+    private static final String OPT_FUNCTIONS = "functions";
+    private static final String OPT_FEATURES = "features";
+    private static final String OPT_ANNOTATIONS = "annotations";
+    private static final String OPT_NESTING_DEPTH = "nesting-depth";
+    private static final String OPT_NESTING_RATE = "nesting-rate";
+    private static final String OPT_NEGATION_RATE = "negation-rate";
+    private static final String OPT_COMBINATION_RATE = "combination-rate";
+    private static final String OPT_SEED = "seed";
+
+    public static void main(String[] args) {
+        Options options = makeOptions();
+        SyntheticProject project = new SyntheticProject();
+        Path projectDir;
+        try {
+            CommandLine line = new DefaultParser().parse(options, args);
+            if (line.hasOption(OPT_HELP)) {
+                new HelpFormatter().printHelp(progName() + " [OPTIONS] DIR", options);
+                System.exit(0);
+                return;
+            }
+            String[] rest = line.getArgs();
+            if (rest.length != 1) {
+                throw new ParseException("Expected exactly one output directory, got " + rest.length + ".");
+            }
+            projectDir = Paths.get(rest[0]);
+            project.numFiles = intOption(line, OPT_FILES, project.numFiles);
+            project.functionsPerFile = intOption(line, OPT_FUNCTIONS, project.functionsPerFile);
+            project.numFeatures = intOption(line, OPT_FEATURES, project.numFeatures);
+            project.maxAnnotationsPerFunction = intOption(line, OPT_ANNOTATIONS, project.maxAnnotationsPerFunction);
+            project.maxNestingDepth = intOption(line, OPT_NESTING_DEPTH, project.maxNestingDepth);
+            project.nestingRate = doubleOption(line, OPT_NESTING_RATE, project.nestingRate);
+            project.negationRate = doubleOption(line, OPT_NEGATION_RATE, project.negationRate);
+            project.combinationRate = doubleOption(line, OPT_COMBINATION_RATE, project.combinationRate);
+            if (line.hasOption(OPT_SEED)) project.seed = Long.parseLong(line.getOptionValue(OPT_SEED));
+        } catch (ParseException | IllegalArgumentException e) {
+            System.err.println("Error in command line: " + e.getMessage());
+            new HelpFormatter().printUsage(new PrintWriter(System.err, true), 80, progName(), options);
+            System.exit(1);
+            return;
+        }
+
+        try {
+            project.writeTo(projectDir);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error in command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing synthetic project to " + projectDir, e);
+        }
+        System.out.println("Synthetic project with " + project.numFiles + " files written to `" + projectDir + "'.");
+    }
+
+    private static int intOption(CommandLine line, String name, int defaultValue) {
+        return line.hasOption(name) ? Integer.parseInt(line.getOptionValue(name)) : defaultValue;
+    }
+
+    private static double doubleOption(CommandLine line, String name, double defaultValue) {
+        return line.hasOption(name) ? Double.parseDouble(line.getOptionValue(name)) : defaultValue;
+    }
+
+    private static Options makeOptions() {
+        Options options = new Options();
+        //@formatter:off
+        options.addOption(Option.builder("h").longOpt(OPT_HELP)
+                .desc("print this help screen and exit")
+                .build());
+        options.addOption(Option.builder().longOpt(OPT_FILES)
+                .desc("number of C files")
+                .hasArg().argName("NUM").build());
+        options.addOption(Option.builder().longOpt(OPT_FUNCTIONS)
+                .desc("number of functions in each file")
+                .hasArg().argName("NUM").build());
+        options.addOption(Option.builder().longOpt(OPT_FEATURES)
+                .desc("number of distinct features")
+                .hasArg().argName("NUM").build());
+        options.addOption(Option.builder().longOpt(OPT_ANNOTATIONS)
+                .desc("maximum number of top-level annotations in a function")
+                .hasArg().argName("NUM").build());
+        options.addOption(Option.builder().longOpt(OPT_NESTING_DEPTH)
+                .desc("maximum nesting depth of annotations, 0 disables nesting")
+                .hasArg().argName("NUM").build());
+        options.addOption(Option.builder().longOpt(OPT_NESTING_RATE)
+                .desc("probability that an annotated line is replaced by a nested annotation")
+                .hasArg().argName("P").build());
+        options.addOption(Option.builder().longOpt(OPT_NEGATION_RATE)
+                .desc("probability that a feature is referenced in negated form")
+                .hasArg().argName("P").build());
+        options.addOption(Option.builder().longOpt(OPT_COMBINATION_RATE)
+                .desc("probability that an annotation references two features")
+                .hasArg().argName("P").build());
+        options.addOption(Option.builder().longOpt(OPT_SEED)
+                .desc("seed of the random number generator")
+                .hasArg().argName("NUM").build());
+        //@formatter:on
+        return options;
+    }
+
+    private static String progName() {
+        return GenerateSyntheticProject.class.getSimpleName();
+    }
+}
@@ -0,0 +1,53 @@
+package com.easy.benchmark;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.input.SrcMlFolderReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a whole project from its cppStats results, the two steps of Skunk's <code>--source</code> option.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestionBenchmark {
+
+    /**
+     * A context that has just been filled from the cppStats CSV files, as input to the srcML reader.  Since the
+     * reader adds to the context, a fresh one is needed for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class CppStatsReadState {
+        Context ctx;
+
+        @Setup(Level.Invocation)
+        public void setUp(SyntheticProjectState project) {
+            ctx = project.readCppStats();
+        }
+    }
+
+    @Benchmark
+    public Context cppStatsProcessFiles(SyntheticProjectState project) {
+        return project.readCppStats();
+    }
+
+    @Benchmark
+    public Context srcMlProcessFiles(CppStatsReadState state) {
+        new SrcMlFolderReader(state.ctx).ProcessFiles();
+        return state.ctx;
+    }
+}
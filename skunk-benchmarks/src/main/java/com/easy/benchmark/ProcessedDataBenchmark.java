@@ -0,0 +1,59 @@
+package com.easy.benchmark;
+
+import com.easy.detection.data.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading of the intermediate format written by Skunk's <code>--save-intermediate</code> option.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessedDataBenchmark {
+
+    @State(Scope.Thread)
+    public static class SavedProjectState {
+        SyntheticProjectState project;
+        Context ctx;
+        /**
+         * Folder the processed data of {@link #ctx} has been saved to
+         */
+        String processedDataDir;
+
+        @Setup
+        public void setUp(SyntheticProjectState project) throws IOException {
+            this.project = project;
+            ctx = project.readProject();
+            processedDataDir = Files.createDirectories(project.workDir.resolve("processed")).toString();
+            // Saving drops data that is only needed during ingestion, so the first save differs from all others.
+            ctx.processedDataHandler.SaveProcessedData(processedDataDir);
+        }
+    }
+
+    @Benchmark
+    public void save(SavedProjectState state) {
+        state.ctx.processedDataHandler.SaveProcessedData(state.processedDataDir);
+    }
+
+    @Benchmark
+    public Context load(SavedProjectState state) {
+        Context ctx = state.project.newContext();
+        ctx.processedDataHandler.LoadProcessedData(state.processedDataDir);
+        return ctx;
+    }
+}
@@ -0,0 +1,77 @@
+package com.easy.benchmark;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.FilePath;
+import com.easy.detection.input.PositionalXmlReader;
+import com.easy.detection.input.SrcMlFolderReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a single srcML file: building the DOM with line numbers and extracting the function signatures from it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SrcMlParsingBenchmark {
+
+    @State(Scope.Thread)
+    public static class SrcMlFileState {
+        /**
+         * Contents of the first srcML file of the project
+         */
+        byte[] srcMlBytes;
+        Node[] functionNodes;
+        FilePath filePath;
+        PositionalXmlReader reader;
+
+        @Setup
+        public void setUp(SyntheticProjectState project) throws IOException, SAXException {
+            Path srcMlFile = project.projectDir.resolve("_cppstats").resolve("src").resolve("file_0.c.xml");
+            srcMlBytes = Files.readAllBytes(srcMlFile);
+            reader = new PositionalXmlReader();
+
+            Document doc = reader.readXML(new ByteArrayInputStream(srcMlBytes));
+            NodeList nodes = doc.getElementsByTagName("function");
+            functionNodes = new Node[nodes.getLength()];
+            for (int i = 0; i < functionNodes.length; i++) {
+                functionNodes[i] = nodes.item(i);
+            }
+            Context ctx = project.newContext();
+            filePath = ctx.internFilePath(srcMlFile.toString());
+        }
+    }
+
+    @Benchmark
+    public Document readXml(SrcMlFileState state) throws IOException, SAXException {
+        return state.reader.readXML(new ByteArrayInputStream(state.srcMlBytes));
+    }
+
+    @Benchmark
+    public void parseFunctionSignatures(SrcMlFileState state, Blackhole bh) {
+        for (Node functionNode : state.functionNodes) {
+            bh.consume(SrcMlFolderReader.parseFunctionSignature(functionNode, state.filePath));
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.easy.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes a synthetic cppStats result folder, i.e., the files Skunk reads when it is run with
+ * <code>--source</code>: <code>cppstats_featurelocations.csv</code>, <code>cppstats.csv</code> and one srcML file per
+ * C file in the <code>_cppstats</code> sub-folder.
+ * <p>
+ * Each C file starts with a few feature-dependent global declarations, followed by a number of functions.  Functions
+ * contain <code>#ifdef</code>, <code>#ifndef</code> and <code>#if</code> annotations, which may be nested and may
+ * combine several features.  As in real projects, some features are referenced far more often than others.  The shape
+ * of the project is controlled by the public fields; generation is deterministic for a given {@link #seed}.
+ * </p>
+ */
+public class SyntheticProject {
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+    private static final String UNIT_START = "<unit xmlns=\"http://www.sdml.info/srcML/src\""
+            + " xmlns:cpp=\"http://www.sdml.info/srcML/cpp\" language=\"C\" filename=\"%s\">";
+
+    /**
+     * Maximum number of lines within an annotation (not counting nested annotations)
+     */
+    private static final int MAX_ANNOTATED_LINES = 4;
+    /**
+     * Maximum number of annotated global declarations at the beginning of a file
+     */
+    private static final int MAX_FILE_LEVEL_ANNOTATIONS = 2;
+    /**
+     * How strongly feature popularity is skewed.  Features are picked with an index of
+     * <code>numFeatures * random^FEATURE_SKEW</code>, so with a skew of 2, the first 10% of the features get about 30%
+     * of all references.
+     */
+    private static final double FEATURE_SKEW = 2.0;
+
+    /**
+     * Number of C files
+     */
+    public int numFiles = 100;
+    /**
+     * Number of function definitions in each file
+     */
+    public int functionsPerFile = 20;
+    /**
+     * Number of distinct features referenced by the annotations
+     */
+    public int numFeatures = 200;
+    /**
+     * Maximum number of (top-level) annotations within a single function.  The actual number is chosen uniformly
+     * between 0 and this value.
+     */
+    public int maxAnnotationsPerFunction = 3;
+    /**
+     * Maximum nesting depth of annotations, 0 means that annotations are never nested
+     */
+    public int maxNestingDepth = 2;
+    /**
+     * Probability that a line within an annotation is replaced by a nested annotation, as long as
+     * {@link #maxNestingDepth} has not been reached
+     */
+    public double nestingRate = 0.2;
+    /**
+     * Probability that a feature is referenced in negated form (<code>#ifndef</code> or <code>!defined(...)</code>)
+     */
+    public double negationRate = 0.1;
+    /**
+     * Probability that an annotation references two features instead of one
+     */
+    public double combinationRate = 0.1;
+    /**
+     * Seed of the random number generator
+     */
+    public long seed = 42L;
+
+    /**
+     * Creates a generator with the default shape
+     */
+    public SyntheticProject() {
+    }
+
+    /**
+     * Creates a generator with the default shape, except for the given size
+     *
+     * @param numFiles         number of C files
+     * @param functionsPerFile number of function definitions in each file
+     * @param numFeatures      number of distinct features referenced by the annotations
+     * @param seed             seed of the random number generator
+     */
+    public SyntheticProject(int numFiles, int functionsPerFile, int numFeatures, long seed) {
+        this.numFiles = numFiles;
+        this.functionsPerFile = functionsPerFile;
+        this.numFeatures = numFeatures;
+        this.seed = seed;
+    }
+
+    private void validate() {
+        if (numFiles < 1 || numFeatures < 1) {
+            throw new IllegalArgumentException("Need at least one file and one feature.");
+        }
+        if (functionsPerFile < 0 || maxAnnotationsPerFunction < 0 || maxNestingDepth < 0) {
+            throw new IllegalArgumentException("Number of functions, annotations and nesting depth must not be negative.");
+        }
+        checkProbability("nesting rate", nestingRate);
+        checkProbability("negation rate", negationRate);
+        checkProbability("combination rate", combinationRate);
+    }
+
+    private static void checkProbability(String name, double value) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException("The " + name + " must be between 0 and 1, got " + value + ".");
+        }
+    }
+
+    /**
+     * Writes the project into the given folder, which is created if necessary.
+     *
+     * @param projectDir the folder that will play the role of the cppStats result folder
+     * @throws IOException if writing any of the files fails
+     */
+    public void writeTo(Path projectDir) throws IOException {
+        validate();
+        final Random random = new Random(seed);
+        final Path srcMlDir = projectDir.resolve("_cppstats").resolve("src");
+        Files.createDirectories(srcMlDir);
+
+        try (BufferedWriter featureLocations = Files.newBufferedWriter(projectDir.resolve("cppstats_featurelocations.csv"), StandardCharsets.UTF_8);
+             BufferedWriter general = Files.newBufferedWriter(projectDir.resolve("cppstats.csv"), StandardCharsets.UTF_8)) {
+            featureLocations.write("FILENAME,LINE_START,LINE_END,TYPE,EXPRESSION,CONSTANTS\n");
+            general.write("FILENAME,LOC\n");
+
+            long totalLoc = 0;
+            for (int iFile = 0; iFile < numFiles; iFile++) {
+                final String cFileName = "file_" + iFile + ".c";
+                final Path srcMlFile = srcMlDir.resolve(cFileName + ".xml");
+                final String srcMlPath = srcMlFile.toAbsolutePath().toString();
+                final SrcMlFile contents = new SrcMlFile(random, cFileName);
+                contents.generate(iFile);
+                Files.write(srcMlFile, contents.lines, StandardCharsets.UTF_8);
+                // annotations are listed in the order of their start lines, enclosing ones before nested ones
+                for (Annotation a : contents.annotations) {
+                    featureLocations.write(csvRow(srcMlPath, a.startLine, a.endLine, a.type, a.expression, a.constants));
+                }
+                general.write(csvRow(srcMlPath, contents.loc));
+                totalLoc += contents.loc;
+            }
+            general.write(csvRow("ALL - MERGED", totalLoc));
+        }
+    }
+
+    private static class Annotation {
+        final int startLine;
+        int endLine;
+        final String type;
+        final String expression;
+        final String constants;
+
+        Annotation(int startLine, String type, String expression, String constants) {
+            this.startLine = startLine;
+            this.type = type;
+            this.expression = expression;
+            this.constants = constants;
+        }
+    }
+
+    private class SrcMlFile {
+        final Random random;
+        final String cFileName;
+        /**
+         * Lines of the srcML document.  The first line holds the XML declaration, so line <code>n</code> of the C file
+         * is line <code>n + 1</code> of the document.
+         */
+        final List<String> lines = new ArrayList<>();
+        final List<Annotation> annotations = new ArrayList<>();
+        int loc = 0;
+        int globalCounter = 0;
+
+        SrcMlFile(Random random, String cFileName) {
+            this.random = random;
+            this.cFileName = cFileName;
+        }
+
+        /**
+         * @return the 1-based line number in the C file that the next added line will have
+         */
+        int nextCLine() {
+            return lines.size();
+        }
+
+        void add(String line) {
+            lines.add(line);
+            if (!line.isEmpty()) loc++;
+        }
+
+        void generate(int iFile) {
+            lines.add(XML_DECLARATION);
+            add(String.format(UNIT_START, cFileName)
+                    + "<cpp:include>#<cpp:directive>include</cpp:directive> <cpp:file>&lt;stdio.h&gt;</cpp:file></cpp:include>");
+            add("");
+            final int numFileLevelAnnotations = random.nextInt(MAX_FILE_LEVEL_ANNOTATIONS + 1);
+            for (int i = 0; i < numFileLevelAnnotations; i++) {
+                addAnnotation(0, false);
+            }
+            add("");
+            for (int iFunc = 0; iFunc < functionsPerFile; iFunc++) {
+                addFunction("func_" + iFile + "_" + iFunc);
+                add("");
+            }
+            lines.add("</unit>");
+        }
+
+        void addFunction(String name) {
+            add("<function><type><name>int</name></type> <name>" + name + "</name>"
+                    + "<parameter_list>(<param><decl><type><name>int</name></type> <name>x</name></decl></param>)</parameter_list>");
+            add("<block>{");
+            add("    <decl_stmt><decl><type><name>int</name></type> <name>r</name> <init>= <expr><name>x</name></expr></init></decl>;</decl_stmt>");
+            final int numAnnotations = random.nextInt(maxAnnotationsPerFunction + 1);
+            for (int i = 0; i < numAnnotations; i++) {
+                addStatement(i);
+                addAnnotation(0, true);
+            }
+            add("    <return>return <expr><name>r</name></expr>;</return>");
+            add("}</block></function>");
+        }
+
+        void addStatement(int i) {
+            add("    <expr_stmt><expr><name>r</name> += <literal type=\"number\">" + i + "</literal></expr>;</expr_stmt>");
+        }
+
+        void addGlobalDeclaration() {
+            add("<decl_stmt><decl><type><name>int</name></type> <name>global_" + (globalCounter++) + "</name></decl>;</decl_stmt>");
+        }
+
+        /**
+         * Adds an annotation, possibly containing nested ones.
+         *
+         * @param depth      nesting depth of the annotation, 0 for annotations that are not nested
+         * @param inFunction whether the annotation is within a function body or at file level
+         */
+        void addAnnotation(int depth, boolean inFunction) {
+            final Annotation a = addDirective();
+            annotations.add(a);
+            final int numLines = 1 + random.nextInt(MAX_ANNOTATED_LINES);
+            for (int i = 0; i < numLines; i++) {
+                if (depth < maxNestingDepth && random.nextDouble() < nestingRate) {
+                    addAnnotation(depth + 1, inFunction);
+                } else if (inFunction) {
+                    addStatement(i);
+                } else {
+                    addGlobalDeclaration();
+                }
+            }
+            a.endLine = nextCLine();
+            add("<cpp:endif>#<cpp:directive>endif</cpp:directive></cpp:endif>");
+        }
+
+        /**
+         * Adds the line of an opening <code>#if</code>, <code>#ifdef</code> or <code>#ifndef</code> directive
+         *
+         * @return the annotation started by the directive, without its end line
+         */
+        Annotation addDirective() {
+            final int startLine = nextCLine();
+            final String feature = pickFeature();
+            final boolean negated = random.nextDouble() < negationRate;
+            if (random.nextDouble() < combinationRate && numFeatures > 1) {
+                String otherFeature = pickFeature();
+                if (!otherFeature.equals(feature)) {
+                    final boolean otherNegated = random.nextDouble() < negationRate;
+                    final String expression = definedExpression(feature, negated) + " && "
+                            + definedExpression(otherFeature, otherNegated);
+                    add("<cpp:if>#<cpp:directive>if</cpp:directive> <expr>" + definedXml(feature, negated)
+                            + " &amp;&amp; " + definedXml(otherFeature, otherNegated) + "</expr></cpp:if>");
+                    return new Annotation(startLine, "#if", expression, feature + ";" + otherFeature);
+                }
+            }
+            final String directive = negated ? "ifndef" : "ifdef";
+            add("<cpp:" + directive + ">#<cpp:directive>" + directive + "</cpp:directive> <name>" + feature
+                    + "</name></cpp:" + directive + ">");
+            return new Annotation(startLine, "#" + directive, definedExpression(feature, negated), feature);
+        }
+
+        String pickFeature() {
+            return "FEATURE_" + (int) (numFeatures * Math.pow(random.nextDouble(), FEATURE_SKEW));
+        }
+    }
+
+    private static String definedExpression(String feature, boolean negated) {
+        return (negated ? "!" : "") + "defined(" + feature + ")";
+    }
+
+    private static String definedXml(String feature, boolean negated) {
+        return (negated ? "!" : "") + "<call><name>defined</name><argument_list>(<argument><expr><name>" + feature
+                + "</name></expr></argument>)</argument_list></call>";
+    }
+
+    private static String csvRow(Object... values) {
+        StringBuilder b = new StringBuilder();
+        for (Object v : values) {
+            if (b.length() > 0) b.append(',');
+            String s = String.valueOf(v);
+            if (s.indexOf(',') != -1 || s.indexOf('"') != -1) {
+                b.append('"').append(s.replace("\"", "\"\"")).append('"');
+            } else {
+                b.append(s);
+            }
+        }
+        return b.append('\n').toString();
+    }
+}
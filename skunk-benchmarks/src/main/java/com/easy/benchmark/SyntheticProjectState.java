@@ -0,0 +1,116 @@
+package com.easy.benchmark;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.detector.DetectionConfig;
+import com.easy.detection.detector.DetectionConfigException;
+import com.easy.detection.input.CppStatsFolderReader;
+import com.easy.detection.input.SrcMlFolderReader;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A synthetic project written to a temporary folder once per trial, together with a detection configuration that
+ * enables checks of all three smells.  The size of the project is controlled by the JMH parameters of this state,
+ * e.g., <code>-p files=1000</code>.
+ */
+@State(Scope.Benchmark)
+public class SyntheticProjectState {
+    /**
+     * Thresholds low enough for the generated projects to trigger every kind of check
+     */
+    private static final List<String> DETECTION_CONFIG = Arrays.asList(
+            "Feature_ProjectLocRatio=0.001",
+            "Feature_NumberOfCompilUnits=2",
+            "Feature_NumberNofc=2",
+            "Method_LoacToLocRatio=0.5",
+            "Method_NumberOfFeatureConstants=2",
+            "Method_NestingSum=1",
+            "Method_NumberOfFeatureLocations=2",
+            "File_LoacToLocRatio=0.3",
+            "File_NumberOfFeatureConstants=2",
+            "File_NestingSum=1",
+            "File_NumberOfFeatureLocations=2");
+
+    @Param({"100"})
+    public int files;
+
+    @Param({"20"})
+    public int functionsPerFile;
+
+    @Param({"200"})
+    public int features;
+
+    @Param({"2"})
+    public int nestingDepth;
+
+    /**
+     * Temporary folder holding everything written by this state and by the benchmarks using it
+     */
+    public Path workDir;
+    /**
+     * The cppStats result folder of the generated project
+     */
+    public Path projectDir;
+    public DetectionConfig config;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        workDir = Files.createTempDirectory("skunk-benchmark");
+        projectDir = workDir.resolve("project");
+        SyntheticProject generator = new SyntheticProject(files, functionsPerFile, features, 42L);
+        generator.maxNestingDepth = nestingDepth;
+        generator.writeTo(projectDir);
+
+        Path configFile = workDir.resolve("Benchmark.csm");
+        Files.write(configFile, DETECTION_CONFIG, StandardCharsets.UTF_8);
+        try {
+            config = new DetectionConfig(configFile.toString());
+        } catch (DetectionConfigException e) {
+            throw new RuntimeException("Invalid benchmark detection configuration", e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    /**
+     * @return a fresh context, without any data
+     */
+    public Context newContext() {
+        return new Context(config);
+    }
+
+    /**
+     * @return a fresh context holding the data of the cppStats CSV files of the project
+     */
+    public Context readCppStats() {
+        Context ctx = newContext();
+        new CppStatsFolderReader(ctx, projectDir.toString()).ProcessFiles();
+        return ctx;
+    }
+
+    /**
+     * @return a fresh context holding the data of the whole project, processed the same way as by Skunk's
+     * <code>--source</code> option
+     */
+    public Context readProject() {
+        Context ctx = readCppStats();
+        new SrcMlFolderReader(ctx).ProcessFiles();
+        ctx.functions.PostAction();
+        return ctx;
+    }
+}
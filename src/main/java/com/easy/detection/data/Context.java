@@ -1,9 +1,16 @@
 package com.easy.detection.data;
 
 import com.easy.detection.detector.DetectionConfig;
+import com.easy.detection.logging.Metrics;
+import com.easy.detection.logging.RunReport;
 import com.easy.detection.output.ProcessedDataHandler;
+import com.easy.util.OffHeapIntArena;
+import com.easy.util.OffHeapIntList;
+import com.easy.util.StringPool;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,30 +23,148 @@ public class Context {
     public final MethodCollection functions;
     public final FeatureExpressionCollection featureExpressions;
     public final ProcessedDataHandler processedDataHandler;
-    private final Map<String, FilePath> filePathByActualPath = new HashMap<>();
+    /**
+     * Pool of the file paths and feature names of the project, shared by all entities so that each distinct string is
+     * only kept once
+     */
+    public final StringPool strings;
+    /**
+     * Resource usage of the phases of the current run.  Not part of the processed data.
+     */
+    public final transient RunReport runReport = new RunReport();
+    /**
+     * Counters and histograms of the current run.  Not part of the processed data.
+     */
+    public final transient Metrics metrics = new Metrics();
+    private final Map<String, FilePath> filePathByActualPath;
+    /**
+     * Project-wide statistics, or <code>null</code> if not yet computed.  Not part of the processed data.
+     */
+    private transient ProjectStats projectStats;
+    /**
+     * Where the line numbers of annotated code of methods and files are kept, or <code>null</code> if they are kept on
+     * the heap.  Not part of the processed data.
+     */
+    private transient OffHeapIntArena lineArena;
 
     public Context(DetectionConfig config) {
         this.config = config;
+        this.strings = new StringPool();
+        this.filePathByActualPath = new HashMap<>();
         this.files = new FileCollection(this);
-        this.functions = new MethodCollection();
+        this.functions = new MethodCollection(this);
         this.featureExpressions = new FeatureExpressionCollection(this);
         this.processedDataHandler = new ProcessedDataHandler(this);
     }
 
+    private Context(Context base, DetectionConfig config) {
+        this.config = config;
+        this.files = base.files;
+        this.functions = base.functions;
+        this.featureExpressions = base.featureExpressions;
+        this.processedDataHandler = base.processedDataHandler;
+        this.strings = base.strings;
+        this.filePathByActualPath = base.filePathByActualPath;
+        this.projectStats = base.GetProjectStats();
+        this.lineArena = base.lineArena;
+    }
+
+    /**
+     * Creates a context that shares all data with this one, but uses a different detection configuration.  This
+     * allows running the {@link com.easy.detection.detector.Detector} with several configurations on data that has
+     * been read only once.  The entities still refer to this context, so only code that gets the configuration from
+     * the returned context, such as the detector and the output of its results, sees the new configuration.
+     *
+     * @param config the detection configuration
+     * @return a new context with the given configuration
+     */
+    public Context withConfig(DetectionConfig config) {
+        return new Context(this, config);
+    }
+
+    /**
+     * Gets the project-wide statistics.  They are computed on first access and then kept, so this must only be called
+     * once the project has been read.
+     *
+     * @return the statistics of the project
+     * @see #UpdateProjectStats()
+     */
+    public ProjectStats GetProjectStats() {
+        ProjectStats result = this.projectStats;
+        if (result == null) {
+            result = ProjectStats.Compute(this);
+            this.projectStats = result;
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes the project-wide statistics from the entities read so far.  To be called after reading or loading the
+     * project.
+     *
+     * @return the new statistics of the project
+     */
+    public ProjectStats UpdateProjectStats() {
+        this.projectStats = ProjectStats.Compute(this);
+        return this.projectStats;
+    }
+
+    /**
+     * Keeps the line numbers of annotated code of the methods and files created from now on outside of the Java heap.
+     * For very large projects, this saves one boxed <code>Integer</code> per line and method or file.  To be called
+     * before reading the project.
+     */
+    public void EnableOffHeapStorage() {
+        if (this.lineArena == null) this.lineArena = new OffHeapIntArena();
+    }
+
+    /**
+     * @return the number of bytes of direct memory reserved for entity data, <code>0</code> unless {@link
+     * #EnableOffHeapStorage()} has been called
+     */
+    public long GetOffHeapBytes() {
+        return (lineArena == null) ? 0 : lineArena.reservedBytes();
+    }
+
+    /**
+     * Creates an empty list for the line numbers of annotated code of a method or file.
+     *
+     * @return a list on the heap, or an {@link OffHeapIntList} if {@link #EnableOffHeapStorage()} has been called
+     */
+    public List<Integer> NewLineList() {
+        return (lineArena == null) ? new ArrayList<>() : new OffHeapIntList(lineArena);
+    }
+
+    /**
+     * Copies the line numbers of annotated code of all methods and files into lists on the heap, if they are kept
+     * outside of it.  XStream serializes entities by reflection and reaches methods and files from any entity (via
+     * their context or the method of a feature reference), so this must be done before any of the processed data is
+     * serialized.
+     */
+    public void MoveLineListsToHeap() {
+        if (lineArena == null) return;
+        for (Method meth : functions.AllMethods()) {
+            if (meth.loac instanceof OffHeapIntList) meth.loac = new ArrayList<>(meth.loac);
+        }
+        for (File file : files.AllFiles()) {
+            if (file.loac instanceof OffHeapIntList) file.loac = new ArrayList<>(file.loac);
+        }
+    }
+
     public FilePath internFilePath(String actualFilePath) {
         FilePath existing = filePathByActualPath.get(actualFilePath);
         if (existing != null) {
             return existing;
         }
 
-        String filePathKey = files.KeyFromFilePath(actualFilePath);
-        FilePath newPath = new FilePath(actualFilePath, filePathKey);
-        filePathByActualPath.put(actualFilePath, newPath);
+        String canonicalActualPath = strings.canonical(actualFilePath);
+        String filePathKey = strings.canonical(files.KeyFromFilePath(canonicalActualPath));
+        FilePath newPath = new FilePath(canonicalActualPath, filePathKey);
+        filePathByActualPath.put(canonicalActualPath, newPath);
 
         return newPath;
     }
 
-
     public String getMetricsOutputFilenamePrefix() {
         return getGeneralOutputFilenamePrefix() + "metrics_";
     }
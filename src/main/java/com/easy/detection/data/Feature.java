@@ -1,5 +1,7 @@
 package com.easy.detection.data;
 
+import com.easy.detection.detector.DetectionConfig;
+
 import java.util.*;
 
 /**
@@ -31,7 +33,33 @@ public class Feature implements Comparable<Feature> {
     public EnumGranularity maxGranularity = EnumGranularity.NOTDEFINED;
     public EnumGranularity minGranularity = EnumGranularity.NOTDEFINED;
     /* scattering information */
-    public List<String> compilationFiles;
+    /**
+     * The {@link File#GetIndex() indices} of the files that reference this feature
+     */
+    private BitSet compilationFileIndices;
+    /**
+     * Number of files that reference this feature, i.e., the cardinality of {@link #compilationFileIndices}
+     */
+    private int numberOfCompilationFiles;
+    /**
+     * The configuration the smell components below were computed for, or <code>null</code> if not yet computed
+     */
+    private transient DetectionConfig smellScoresConfig;
+    private transient float constantsSmell;
+    private transient float lofcSmell;
+    private transient float cuSmell;
+    /**
+     * Read-only view of {@link #references}, ordered by position, or <code>null</code> if it has to be rebuilt
+     */
+    private transient List<FeatureReference> referencesByPosition;
+
+    /**
+     * Orders references by file, then by start and end line
+     */
+    private static final Comparator<FeatureReference> POSITION_ORDER = Comparator
+            .comparing((FeatureReference r) -> r.filePath)
+            .thenComparingInt(r -> r.start)
+            .thenComparingInt(r -> r.end);
 
     /**
      * Gets the lines of code.
@@ -43,12 +71,29 @@ public class Feature implements Comparable<Feature> {
     }
 
     /**
-     * Gets all references to the feature
+     * Gets all references to the feature, ordered by file and line.  The list is read-only and shared between callers
+     * until the next reference is added, so it must not be modified.
      *
      * @return the locs
      */
     public List<FeatureReference> getReferences() {
-        return new ArrayList<>(this.references.values());
+        List<FeatureReference> result = this.referencesByPosition;
+        if (result == null) {
+            List<FeatureReference> sorted = new ArrayList<>(this.references.values());
+            sorted.sort(POSITION_ORDER);
+            result = Collections.unmodifiableList(sorted);
+            this.referencesByPosition = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of references to the feature without building the list returned by {@link #getReferences()}.
+     *
+     * @return the nofc
+     */
+    public int GetReferenceCount() {
+        return this.references.size();
     }
 
     /**
@@ -59,7 +104,7 @@ public class Feature implements Comparable<Feature> {
     public Feature(Context ctx, String name) {
         this.Name = name;
         this.references = new HashMap<>();
-        this.compilationFiles = new ArrayList<>();
+        this.compilationFileIndices = new BitSet();
         this.maxNestingDepth = -1;
         this.minNestingDepth = -1;
         this.ctx = ctx;
@@ -71,22 +116,36 @@ public class Feature implements Comparable<Feature> {
      * @param ref the loc
      */
     public void AddReference(FeatureReference ref) {
+        AddReference(ref, ctx.files.FindFile(ref.filePath));
+    }
+
+    /**
+     * Adds the feature constant and increases lines of feature code.
+     *
+     * @param ref  the loc
+     * @param file the file containing the reference
+     */
+    public void AddReference(FeatureReference ref, File file) {
         // connect constant with this feature (both directions)
         ref.feature = this;
         // set loc for the feature
         this.references.put(ref.id, ref);
+        this.referencesByPosition = null;
+        ctx.featureExpressions.IndexReference(ref);
         this._lofc += ref.end - ref.start + 1;
-        File file = ctx.files.FindFile(ref.filePath);
-        for (int current : file.emptyLines)
-            if (current > ref.start && current < ref.end) this._lofc--;
+        this._lofc -= file.CountEmptyLines(ref.start + 1, ref.end - 1);
         // assign nesting depth
         if (this.minNestingDepth == -1) this.minNestingDepth = ref.nestingDepth;
         if (this.maxNestingDepth == -1) this.maxNestingDepth = ref.nestingDepth;
         if (this.maxNestingDepth < ref.nestingDepth) this.maxNestingDepth = ref.nestingDepth;
         if (this.minNestingDepth > ref.nestingDepth) this.minNestingDepth = ref.nestingDepth;
-        // add cu if not already in the list
-        if (!this.compilationFiles.contains(ref.filePath)) this.compilationFiles.add(ref.filePath);
+        // add cu if not already in the set
+        if (!this.compilationFileIndices.get(file.index)) {
+            this.compilationFileIndices.set(file.index);
+            this.numberOfCompilationFiles++;
+        }
         ctx.featureExpressions.numberOfFeatureConstantReferences++;
+        this.smellScoresConfig = null;
     }
 
     /**
@@ -95,7 +154,15 @@ public class Feature implements Comparable<Feature> {
      * @return the int
      */
     public int GetAmountCompilationFiles() {
-        return this.compilationFiles.size();
+        return this.numberOfCompilationFiles;
+    }
+
+    /**
+     * @param file a file of the project
+     * @return <code>true</code> if the file references this feature
+     */
+    public boolean IsInCompilationFile(File file) {
+        return this.compilationFileIndices.get(file.index);
     }
 
     @Override
@@ -110,6 +177,70 @@ public class Feature implements Comparable<Feature> {
         return this.getClass().getSimpleName() + "{" + "Name='" + Name + '\'' + '}';
     }
 
+    /**
+     * Computes the smell components for the weights of the given context's configuration, unless they have already
+     * been computed for that configuration.  The components are relative to project-wide totals, so they must only be
+     * requested once all features have been read.
+     */
+    public void ensureSmellScores(Context ctx) {
+        final DetectionConfig conf = ctx.config;
+        if (smellScoresConfig == conf) return;
+        // # featureConstants/#TotalLocations
+        final ProjectStats stats = ctx.GetProjectStats();
+        constantsSmell = conf.Feature_NumberNofc_Weight * (((float) GetReferenceCount())
+                / (stats.GetFeatureConstantReferences()));
+        // LOFC/TotalLoc
+        lofcSmell = conf.Feature_NumberLofc_Weight * (((float) getLofc()) / (stats.GetLoc()));
+        // CompilUnit/MaxCompilUnits
+        cuSmell = (numberOfCompilationFiles) / ((float) stats.GetFileCount());
+        smellScoresConfig = conf;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted share of this feature's references among all feature constant references
+     */
+    public float GetConstantsSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return constantsSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted share of this feature's lines of feature code among all lines of feature code
+     */
+    public float GetLOFCSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return lofcSmell;
+    }
+
+    /**
+     * @param ctx context of the analyzed project
+     * @return share of the project's files that reference this feature
+     */
+    public float GetCUSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return cuSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return the aggregated Large Feature smell value, i.e., the sum of the constants and LOFC smell
+     */
+    public float GetLGSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return constantsSmell + lofcSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return the aggregated Shotgun Surgery smell value, i.e., the sum of the constants and compilation unit smell
+     */
+    public float GetSSSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return constantsSmell + cuSmell;
+    }
+
     public boolean isSmelly() {
         return isSmelly;
     }
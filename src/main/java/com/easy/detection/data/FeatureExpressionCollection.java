@@ -13,6 +13,10 @@ import java.util.function.Consumer;
 public class FeatureExpressionCollection {
     private final Context ctx;
     private Map<String, Feature> _features;
+    /**
+     * All references of all features, by their ID
+     */
+    private Map<UUID, FeatureReference> _referencesById;
     private int _loc;
     private int _meanLofc;
     /**
@@ -75,8 +79,9 @@ public class FeatureExpressionCollection {
         Feature existingFeature = _features.get(name);
         if (existingFeature != null) return existingFeature;
         // feature missing --> add new
-        Feature newFeature = new Feature(ctx, name);
-        _features.put(name, newFeature);
+        String canonicalName = ctx.strings.canonical(name);
+        Feature newFeature = new Feature(ctx, canonicalName);
+        _features.put(canonicalName, newFeature);
         return newFeature;
     }
 
@@ -88,10 +93,16 @@ public class FeatureExpressionCollection {
      * @return the feature constant or <code>null</code>
      */
     public FeatureReference GetFeatureConstant(String name, UUID id) {
-        for (Feature feature : _features.values()) {
-            if (feature.references.containsKey(id)) return feature.references.get(id);
-        }
-        return null;
+        return _referencesById.get(id);
+    }
+
+    /**
+     * Makes a reference that has just been added to one of the features of this collection findable by its ID
+     *
+     * @param ref the reference
+     */
+    void IndexReference(FeatureReference ref) {
+        _referencesById.put(ref.id, ref);
     }
 
     /**
@@ -109,6 +120,7 @@ public class FeatureExpressionCollection {
     public FeatureExpressionCollection(Context ctx) {
         this.ctx = ctx;
         _features = new LinkedHashMap<>();
+        _referencesById = new HashMap<>();
         _loc = 0;
         numberOfFeatureConstantReferences = 0;
     }
@@ -143,7 +155,13 @@ public class FeatureExpressionCollection {
         XStream stream = new XStream();
         List<Feature> listOfFeatures = (List<Feature>) stream.fromXML(xmlFileReader);
         for (Feature feature : listOfFeatures) {
+            // XStream creates a copy of each path and feature name per occurrence, so share them again
+            feature.Name = ctx.strings.canonical(feature.Name);
             _features.put(feature.Name, feature);
+            for (FeatureReference ref : feature.references.values()) {
+                ref.filePath = ctx.strings.canonical(ref.filePath);
+                IndexReference(ref);
+            }
         }
     }
 }
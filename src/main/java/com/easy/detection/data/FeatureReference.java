@@ -52,6 +52,16 @@ public class FeatureReference implements Comparable<FeatureReference> {
      * = null.
      */
     public Method inMethod;
+    /**
+     * The reference this one is nested in, i.e., the first reference of the directly enclosing annotation of the same
+     * file.  If this reference is combined with others in the same annotation and is not the first of them, it is the
+     * first reference of its own annotation.  <code>null</code> for references in top-level annotations.
+     */
+    public FeatureReference parent;
+    /**
+     * The references whose {@link #parent} is this reference, in the order they appear in the file.
+     */
+    public List<FeatureReference> children;
 
     /**
      * Instantiates a new featur reference.
@@ -70,10 +80,21 @@ public class FeatureReference implements Comparable<FeatureReference> {
         this.nestingDepth = nestingDepth;
         this.notFlag = notFlag;
         this.combinedWith = new ArrayList<>();
+        this.children = new ArrayList<>();
         this.granularity = EnumGranularity.NOTDEFINED;
         this.discipline = EnumDiscipline.NOTDEFINED;
     }
 
+    /**
+     * Links this reference into the annotation tree of its file as a child of the given reference
+     *
+     * @param parent the enclosing reference or <code>null</code> if this reference is not nested
+     */
+    public void SetParent(FeatureReference parent) {
+        this.parent = parent;
+        if (parent != null) parent.children.add(this);
+    }
+
     /**
      * @return <code>true</code> if the location of the feature constant also references other features;
      * <code>false</code> otherwise
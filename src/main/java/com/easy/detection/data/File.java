@@ -1,11 +1,11 @@
 package com.easy.detection.data;
 
+import com.easy.detection.detector.DetectionConfig;
+import com.easy.util.SourceLineScanner;
+import com.easy.util.SourceScanPrefetcher;
 import org.apache.commons.io.FileUtils;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 public class File {
     private boolean isSmelly = false;
@@ -23,9 +23,9 @@ public class File {
      */
     public int lofc;
     /**
-     * The amount of nestings in the method (1 per nesting)
+     * The amount of nestings in the method (1 per nesting), or -1 if not yet computed
      */
-    public int nestingSum;
+    private int nestingSum;
     /**
      * The maximal nesting depth in the method
      */
@@ -34,7 +34,10 @@ public class File {
      * The lines of visible annotated code. (amount of loc that is inside
      * annotations)
      */
-    public ArrayList<Integer> loac;
+    public List<Integer> loac;
+    /**
+     * Number of lines of visible annotated code, or -1 if not yet computed
+     */
     private int processedLoac;
     /**
      * The feature constants.
@@ -45,21 +48,39 @@ public class File {
      */
     public List<Method> methods;
     /**
-     * The number feature constants in the method (non-duplicated).
+     * The number feature constants in the method (non-duplicated), or -1 if not yet computed
      */
-    public int numberFeatureConstantsNonDup;
+    private int numberFeatureConstantsNonDup;
     /**
-     * The number feature occurences.
+     * The number feature occurences, or -1 if not yet computed
      */
-    public int numberOfFeatureLocations;
+    private int numberOfFeatureLocations;
     /**
-     * The number of negations in the method
+     * The number of negations in the method, or -1 if not yet computed
      */
-    public int negationCount;
+    private int negationCount;
     /**
-     * The line numbers of empty lines (whitespace or comments), in ascending order.
+     * The configuration {@link #locationSmell}, {@link #constantsSmell} and {@link #nestingSmell} were computed for,
+     * or <code>null</code> if not yet computed
      */
-    public List<Integer> emptyLines;
+    private transient DetectionConfig smellScoresConfig;
+    private transient float locationSmell;
+    private transient float constantsSmell;
+    private transient float nestingSmell;
+    /**
+     * Indices of the empty lines (whitespace or comments), counting from 0
+     */
+    public BitSet emptyLines;
+    /**
+     * Position of this file among all files of the project, in the order they were interned, starting at 0
+     */
+    int index;
+    /**
+     * The words of {@link #emptyLines} and, for each word, the number of empty lines in all words before it, so the
+     * empty lines before any line can be counted with two array reads.  Built on first use.
+     */
+    private transient long[] emptyLineWords;
+    private transient int[] emptyLinesBeforeWord;
 
     /**
      * Instantiates a new file.
@@ -67,50 +88,39 @@ public class File {
      * @param filePath the file path
      */
     public File(Context ctx, String filePath) {
+        this(ctx, filePath, null);
+    }
+
+    /**
+     * Instantiates a new file.
+     *
+     * @param filePath   the file path
+     * @param prefetcher where to take the empty lines of the file from if it has been queued there, may be
+     *                   <code>null</code>
+     */
+    public File(Context ctx, String filePath, SourceScanPrefetcher prefetcher) {
         this.ctx = ctx;
         this.filePath = filePath;
         this.methods = new ArrayList<>();
         this.loc = 0;
         this.lofc = 0;
-        this.nestingSum = 0;
         this.nestingDepthMax = 0;
-        this.numberFeatureConstantsNonDup = 0;
-        this.numberOfFeatureLocations = 0;
-        this.negationCount = 0;
+        InvalidateMetrics();
         this.featureConstants = new LinkedHashMap<>();
-        this.loac = new ArrayList<>();
-        this.emptyLines = new ArrayList<>();
-        this.getEmptyLines(filePath);
+        this.loac = (ctx == null) ? new ArrayList<>() : ctx.NewLineList();
+        this.getEmptyLines(filePath, prefetcher);
     }
 
     /**
      * Gets the empty lines and assign loc
-     *
-     * @return the empty lines
      */
-    private void getEmptyLines(String filePath) {
+    private void getEmptyLines(String filePath, SourceScanPrefetcher prefetcher) {
         java.io.File file = FileUtils.getFile(filePath);
         try {
-            int index = 0;
-            boolean multiline = false;
-            for (String line : FileUtils.readLines(file)) {
-                // TODO Gucken ob hier ein caller auf ne methode ist --> hashmap
-                // speichern
-                if (multiline) {
-                    this.emptyLines.add(index);
-                    if (line.contains("*/")) multiline = false;
-                } else if (line.isEmpty())
-                    this.emptyLines.add(index);
-                    // single line comment
-                else if (line.trim().startsWith("//"))
-                    this.emptyLines.add(index);
-                    // multiline comment
-                else if (line.trim().startsWith("/*")) {
-                    this.emptyLines.add(index);
-                    if (!line.contains("*/")) multiline = true;
-                } else loc++;
-                index++;
-            }
+            SourceLineScanner.Lines lines = (prefetcher == null) ? null : prefetcher.take(filePath);
+            if (lines == null) lines = SourceLineScanner.scan(file.toPath());
+            this.emptyLines = lines.emptyLines;
+            this.loc += lines.codeLines;
         } catch (IOException e) {
             String pathForErrorMsg;
             try {
@@ -122,6 +132,65 @@ public class File {
         }
     }
 
+    /**
+     * @return position of this file among all files of the project, in the order they were interned, starting at 0
+     */
+    public int GetIndex() {
+        return this.index;
+    }
+
+    /**
+     * @param line index of a line, counting from 0 like {@link #emptyLines}
+     * @return <code>true</code> if the line contains nothing but whitespace and comments
+     */
+    public boolean IsEmptyLine(int line) {
+        return line >= 0 && this.emptyLines.get(line);
+    }
+
+    /**
+     * Counts the empty lines within a range of lines.
+     *
+     * @param from index of the first line of the range (inclusive), counting from 0 like {@link #emptyLines}
+     * @param to   index of the last line of the range (inclusive)
+     * @return number of lines in the range that contain nothing but whitespace and comments
+     */
+    public int CountEmptyLines(int from, int to) {
+        if (to < from) return 0;
+        return countEmptyLinesBefore(to + 1) - countEmptyLinesBefore(from);
+    }
+
+    /**
+     * @param line index of a line, counting from 0 like {@link #emptyLines}
+     * @return number of empty lines with a lower index
+     */
+    private int countEmptyLinesBefore(int line) {
+        if (line <= 0) return 0;
+        if (emptyLinesBeforeWord == null) buildEmptyLineRanks();
+        final int word = line >>> 6;
+        if (word >= emptyLineWords.length) return emptyLinesBeforeWord[emptyLineWords.length];
+        return emptyLinesBeforeWord[word] + Long.bitCount(emptyLineWords[word] & ((1L << line) - 1));
+    }
+
+    private void buildEmptyLineRanks() {
+        final long[] words = this.emptyLines.toLongArray();
+        final int[] before = new int[words.length + 1];
+        for (int i = 0; i < words.length; i++) {
+            before[i + 1] = before[i] + Long.bitCount(words[i]);
+        }
+        this.emptyLineWords = words;
+        this.emptyLinesBeforeWord = before;
+    }
+
+    /**
+     * Forgets which lines are empty, e.g., to save memory once all metrics that depend on them have been computed.
+     * From then on, all lines are considered non-empty.
+     */
+    public void DropEmptyLines() {
+        this.emptyLines.clear();
+        this.emptyLineWords = null;
+        this.emptyLinesBeforeWord = null;
+    }
+
     /**
      * Adds the feature constant if it is not already added.
      *
@@ -131,18 +200,18 @@ public class File {
         if (!this.featureConstants.containsKey(constant.id)) {
             // connect feature to the method
             this.featureConstants.put(constant.id, constant.feature.Name);
+            InvalidateMetrics();
             // assign nesting depth values
             if (constant.nestingDepth > this.nestingDepthMax) this.nestingDepthMax = constant.nestingDepth;
             // calculate lines of feature code (if the feature is longer than
             // the method, use the method end1)
             this.lofc += constant.end - constant.start + 1;
-            for (int current : this.emptyLines)
-                if (current > constant.start && current < constant.end) this.lofc--;
+            this.lofc -= CountEmptyLines(constant.start + 1, constant.end - 1);
             // add lines of visibile annotated code (amount of loc that is
             // inside annotations) until end1 of feature constant or end1 of
             // method
             for (int current = constant.start; current <= constant.end; current++) {
-                if (!(this.loac.contains(current)) && !(this.emptyLines.contains(current))) this.loac.add(current);
+                if (!(this.loac.contains(current)) && !IsEmptyLine(current)) this.loac.add(current);
             }
         }
     }
@@ -174,66 +243,93 @@ public class File {
      * @return lines of visible annotated code (not counting doubles per feature,..)
      */
     public int GetLinesOfAnnotatedCode() {
+        if (this.processedLoac < 0) this.processedLoac = this.loac.size();
         return this.processedLoac;
     }
 
     /**
-     * Gets the number of feature constants of the method
+     * Gets the number of feature constants of the file (non-duplicated)
+     *
+     * @return the number of distinct features referenced in the file
      */
-    public void SetNumberOfFeatureConstants() {
-        ArrayList<String> constants = new ArrayList<>();
-        for (UUID id : featureConstants.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
-            if (!constants.contains(constant.feature.Name)) constants.add(constant.feature.Name);
+    public int GetNumberOfFeatureConstantsNonDup() {
+        if (this.numberFeatureConstantsNonDup < 0) {
+            Set<String> constants = new HashSet<>();
+            for (UUID id : featureConstants.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
+                constants.add(constant.feature.Name);
+            }
+            this.numberFeatureConstantsNonDup = constants.size();
         }
-        this.processedLoac = this.loac.size();
-        this.numberFeatureConstantsNonDup = constants.size();
+        return this.numberFeatureConstantsNonDup;
     }
 
     /**
      * Gets the number of feature occurences. A feature occurence is a complete
      * set of feature constants on one line.
      *
-     * @return the number of feature occurences in the method
-     */
-    public void SetNumberOfFeatureLocations() {
-        ArrayList<Integer> noLoc = new ArrayList<>();
-        // remember the starting position of each feature constant, but do not
-        // add it twice
-        for (UUID id : featureConstants.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
-            if (!noLoc.contains(constant.start)) noLoc.add(constant.start);
+     * @return the number of feature occurences in the file
+     */
+    public int GetNumberOfFeatureLocations() {
+        if (this.numberOfFeatureLocations < 0) {
+            // remember the starting position of each feature constant, but do not
+            // add it twice
+            Set<Integer> noLoc = new HashSet<>();
+            for (UUID id : featureConstants.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
+                noLoc.add(constant.start);
+            }
+            this.numberOfFeatureLocations = noLoc.size();
         }
-        this.numberOfFeatureLocations = noLoc.size();
+        return this.numberOfFeatureLocations;
     }
 
     /**
-     * Set the amount of negated annotations
+     * Gets the amount of negated annotations
      *
      * @return the amount of negated annotations
      */
-    public void SetNegationCount() {
-        int result = 0;
-        for (UUID id : featureConstants.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
-            if (constant.notFlag) result++;
+    public int GetNegationCount() {
+        if (this.negationCount < 0) {
+            int result = 0;
+            for (UUID id : featureConstants.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
+                if (constant.notFlag) result++;
+            }
+            this.negationCount = result;
         }
-        this.negationCount = result;
+        return this.negationCount;
     }
 
     /**
-     * Sets the nesting sum.
+     * Gets the nesting sum.
+     *
+     * @return the sum of the nesting depths of all feature constants in the file
      */
-    public void SetNestingSum() {
-        // minNesting defines the lowest nesting depth of the method (nesting
-        // depths are file based)
-        int res = 0;
-        // add each nesting to the nesting sum
-        for (UUID id : featureConstants.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
-            res += constant.nestingDepth;
+    public int GetNestingSum() {
+        if (this.nestingSum < 0) {
+            int res = 0;
+            // add each nesting to the nesting sum
+            for (UUID id : featureConstants.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
+                res += constant.nestingDepth;
+            }
+            this.nestingSum = res;
         }
-        this.nestingSum = res;
+        return this.nestingSum;
+    }
+
+    /**
+     * Forgets all metrics derived from the feature constants of this file so that they are recomputed on their next
+     * access.
+     */
+    private void InvalidateMetrics() {
+        this.processedLoac = -1;
+        this.numberFeatureConstantsNonDup = -1;
+        this.numberOfFeatureLocations = -1;
+        this.negationCount = -1;
+        this.nestingSum = -1;
+        this.smellScoresConfig = null;
     }
 
     public String FilePathForDisplay() {
@@ -245,6 +341,61 @@ public class File {
         return String.format("File [FilePathForDisplay()=%s]", FilePathForDisplay());
     }
 
+    /**
+     * Computes the smell components for the weights of the given context's configuration, unless they have already
+     * been computed for that configuration.
+     */
+    public void ensureSmellScores(Context ctx) {
+        final DetectionConfig conf = ctx.config;
+        if (smellScoresConfig == conf) return;
+        final float featureLocations = GetNumberOfFeatureLocations();
+        // Loac/Loc * #FeatLocs
+        locationSmell = conf.File_LoacToLocRatio_Weight
+                * (((float) GetLinesOfAnnotatedCode() / (float) loc) * featureLocations);
+        // #Constants/#FeatLocs
+        constantsSmell = conf.File_NumberOfFeatureConstants_Weight
+                * ((float) GetFeatureConstantCount() / featureLocations);
+        // NestingSum/#FeatLocs, weighted like the nesting of methods
+        nestingSmell = conf.Method_NestingSum_Weight * ((float) GetNestingSum() / featureLocations);
+        smellScoresConfig = conf;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted ratio of annotated lines of code, times the number of feature locations
+     */
+    public float GetLocationSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return locationSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted number of feature constants per feature location
+     */
+    public float GetConstantsSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return constantsSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted nesting sum per feature location
+     */
+    public float GetNestingSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return nestingSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return the aggregated Annotation File smell value, i.e., the sum of the location, constants and nesting smell
+     */
+    public float GetAFSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return locationSmell + constantsSmell + nestingSmell;
+    }
+
     public boolean isSmelly() {
         return isSmelly;
     }
@@ -2,6 +2,7 @@ package com.easy.detection.data;
 
 import com.thoughtworks.xstream.XStream;
 import com.easy.util.FileUtils;
+import com.easy.util.SourceScanPrefetcher;
 
 import java.io.Reader;
 import java.io.Writer;
@@ -16,6 +17,11 @@ public class FileCollection {
      */
     private Map<String, File> Files;
 
+    /**
+     * Scans the sources of files before they are interned, if set
+     */
+    private transient SourceScanPrefetcher prefetcher;
+
     /**
      * Instantiates a new method collection.
      */
@@ -34,13 +40,33 @@ public class FileCollection {
         String keyPath = KeyFromFilePath(srcMlFilePath);
         File existingFile = Files.get(keyPath);
         if (existingFile != null) return existingFile;
-        File newFile = new File(ctx, srcMlFilePath);
+        File newFile = new File(ctx, ctx.strings.canonical(srcMlFilePath), prefetcher);
+        newFile.index = Files.size();
+        keyPath = ctx.strings.canonical(keyPath);
         Files.put(keyPath, newFile);
         // System.out.println("Added file #" + Files.size() + ": " + keyPath + "
         // (" + srcMlFilePath + ")");
         return newFile;
     }
 
+    /**
+     * @param srcMlFilePath the file path
+     * @return <code>true</code> if {@link #InternFile(String)} would return an existing file
+     */
+    public boolean ContainsFile(String srcMlFilePath) {
+        return Files.containsKey(KeyFromFilePath(srcMlFilePath));
+    }
+
+    /**
+     * Sets where newly interned files take the results of scanning their source from.  Files that have not been queued
+     * with the prefetcher are scanned synchronously, as without one.
+     *
+     * @param prefetcher the prefetcher, or <code>null</code> to scan all files synchronously
+     */
+    public void SetPrefetcher(SourceScanPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
     /**
      * Gets the file.
      *
@@ -89,18 +115,6 @@ public class FileCollection {
         return FileUtils.coerceCppStatsPathToRelSourcePath(filePath);
     }
 
-    /**
-     * Calculate metrics for all metrics after finishing the collection
-     */
-    public void PostAction() {
-        for (File file : Files.values()) {
-            file.SetNegationCount();
-            file.SetNumberOfFeatureConstants();
-            file.SetNumberOfFeatureLocations();
-            file.SetNestingSum();
-        }
-    }
-
     /**
      * Serialize the features into a xml representation
      *
@@ -110,7 +124,9 @@ public class FileCollection {
         // nullify already processed data for memory reasons
         List<File> fileList = new ArrayList<>(Files.values());
         for (File file : fileList) {
-            file.emptyLines.clear();
+            // remember the LOAC before the lines it is computed from are dropped
+            file.GetLinesOfAnnotatedCode();
+            file.DropEmptyLines();
             file.loac.clear();
         }
         XStream stream = new XStream();
@@ -126,7 +142,12 @@ public class FileCollection {
         XStream stream = new XStream();
         List<File> fileList = (List<File>) stream.fromXML(xmlFileReader);
         for (File f : fileList) {
-            String key = KeyFromFilePath(f.filePath);
+            // XStream creates a copy of each path and feature name per file, so share them again
+            f.filePath = ctx.strings.canonical(f.filePath);
+            for (Map.Entry<UUID, String> ref : f.featureConstants.entrySet()) {
+                ref.setValue(ctx.strings.canonical(ref.getValue()));
+            }
+            String key = ctx.strings.canonical(KeyFromFilePath(f.filePath));
             Files.put(key, f);
         }
     }
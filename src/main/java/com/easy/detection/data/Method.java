@@ -1,5 +1,6 @@
 package com.easy.detection.data;
 
+import com.easy.detection.detector.DetectionConfig;
 import com.easy.util.FileUtils;
 import org.apache.log4j.Logger;
 
@@ -81,9 +82,9 @@ public class Method {
      */
     public long lofc;
     /**
-     * The amount of nestings in the method (1 per nesting)
+     * The amount of nestings in the method (1 per nesting), or -1 if not yet computed
      */
-    public int nestingSum;
+    private int nestingSum;
     /**
      * The maximal nesting depth in the method
      */
@@ -92,23 +93,34 @@ public class Method {
      * The lines of visible annotated code. (amount of loc that is inside annotations)
      */
     public List<Integer> loac;
+    /**
+     * Number of lines of visible annotated code, or -1 if not yet computed
+     */
     private int processedLoac;
     /**
      * The map of the feature constants, by order of appearance
      */
     public Map<UUID, String> featureReferences;
     /**
-     * The number feature constants in the method (non-duplicated).
+     * The number feature constants in the method (non-duplicated), or -1 if not yet computed
+     */
+    private int numberFeatureConstantsNonDup;
+    /**
+     * The number feature locations, or -1 if not yet computed
      */
-    public int numberFeatureConstantsNonDup;
+    private int numberFeatureLocations;
     /**
-     * The number feature locations.
+     * The number of negations in the method, or -1 if not yet computed
      */
-    public int numberFeatureLocations;
+    private int negationCount;
     /**
-     * The number of negations in the method
+     * The configuration {@link #locationSmell}, {@link #constantsSmell} and {@link #nestingSmell} were computed for,
+     * or <code>null</code> if not yet computed
      */
-    public int negationCount;
+    private transient DetectionConfig smellScoresConfig;
+    private transient float locationSmell;
+    private transient float constantsSmell;
+    private transient float nestingSmell;
     /**
      * The file path.
      */
@@ -131,17 +143,14 @@ public class Method {
         this.uniqueFunctionSignature = signature;
         this.start1 = start1;
         this.grossLoc = grossLoc;
-        this.nestingSum = 0;
         this.nestingDepthMax = 0;
         // do not count start1 line while calculating the end1
         this.end1 = start1 + grossLoc - 1;
         // initialize loc
         this.lofc = 0;
         this.featureReferences = new LinkedHashMap<>();
-        this.loac = new ArrayList<>();
-        this.numberFeatureConstantsNonDup = 0;
-        this.numberFeatureLocations = 0;
-        this.negationCount = 0;
+        this.loac = (ctx == null) ? new ArrayList<>() : ctx.NewLineList();
+        InvalidateMetrics();
         this.filePath = filePath;
         //this.sourceCode = sourceCode;
         this.signatureGrossLinesOfCode = signatureGrossLinesOfCode;
@@ -180,6 +189,7 @@ public class Method {
 
         // connect feature to the method
         this.featureReferences.put(featureRef.id, featureRef.feature.Name);
+        InvalidateMetrics();
         featureRef.inMethod = this;
         // assign nesting depth values
         if (featureRef.nestingDepth > this.nestingDepthMax) this.nestingDepthMax = featureRef.nestingDepth;
@@ -213,7 +223,7 @@ public class Method {
         // method
         File file = ctx.files.FindFile(this.filePath);
         for (int current = lofcStart; current <= lofcEnd; current++) {
-            if (!(this.loac.contains(current)) && !file.emptyLines.contains(current))
+            if (!(this.loac.contains(current)) && !file.IsEmptyLine(current))
                 this.loac.add(current);
         }
     }
@@ -222,11 +232,7 @@ public class Method {
         int lofcIncrement = lofcEnd - lofcStart + 1;
         File file = ctx.files.FindFile(this.filePath);
         // Subtract empty lines (do not count them as feature code)
-        for (int current : file.emptyLines) {
-            if (current <= lofcStart) continue;
-            if (current >= lofcEnd) break;
-            lofcIncrement--;
-        }
+        lofcIncrement -= file.CountEmptyLines(lofcStart + 1, lofcEnd - 1);
         return lofcIncrement;
     }
 
@@ -253,6 +259,7 @@ public class Method {
      * @return lines of visible annotated code (not counting doubles per feature,..)
      */
     public int GetLinesOfAnnotatedCode() {
+        if (this.processedLoac < 0) this.processedLoac = this.loac.size();
         return this.processedLoac;
     }
 
@@ -261,13 +268,16 @@ public class Method {
      *
      * @return the int
      */
-    public void SetNumberOfFeatureConstantsNonDup() {
-        ArrayList<String> constants = new ArrayList<>();
-        for (UUID id : featureReferences.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
-            if (!constants.contains(constant.feature.Name)) constants.add(constant.feature.Name);
+    public int GetNumberOfFeatureConstantsNonDup() {
+        if (this.numberFeatureConstantsNonDup < 0) {
+            Set<String> constants = new HashSet<>();
+            for (UUID id : featureReferences.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
+                constants.add(constant.feature.Name);
+            }
+            this.numberFeatureConstantsNonDup = constants.size();
         }
-        this.numberFeatureConstantsNonDup = constants.size();
+        return this.numberFeatureConstantsNonDup;
     }
 
     /**
@@ -275,57 +285,77 @@ public class Method {
      *
      * @return the number of feature occurences in the method
      */
-    public void SetNumberOfFeatureLocations() {
-        ArrayList<Integer> noLocs = new ArrayList<>();
-        // remember the starting position of each feature location, but do not
-        // add it twice
-        for (UUID id : featureReferences.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
-            if (!noLocs.contains(constant.start)) noLocs.add(constant.start);
+    public int GetNumberOfFeatureLocations() {
+        if (this.numberFeatureLocations < 0) {
+            // remember the starting position of each feature location, but do not
+            // add it twice
+            Set<Integer> noLocs = new HashSet<>();
+            for (UUID id : featureReferences.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
+                noLocs.add(constant.start);
+            }
+            this.numberFeatureLocations = noLocs.size();
         }
-        this.processedLoac = this.loac.size();
-        this.numberFeatureLocations = noLocs.size();
+        return this.numberFeatureLocations;
     }
 
     /**
-     * Cet the amount of negated annotations
+     * Gets the amount of negated annotations
      *
      * @return the amount of negated annotations
      */
-    public void SetNegationCount() {
-        int result = 0;
-        for (UUID id : featureReferences.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
-            if (constant.notFlag) result++;
+    public int GetNegationCount() {
+        if (this.negationCount < 0) {
+            int result = 0;
+            for (UUID id : featureReferences.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
+                if (constant.notFlag) result++;
+            }
+            this.negationCount = result;
         }
-        this.negationCount = result;
+        return this.negationCount;
     }
 
     /**
-     * Sets the nesting sum.
+     * Gets the nesting sum.
+     *
+     * @return the sum of the nesting depths of all feature constants, relative to the lowest nesting depth
      */
-    public void SetNestingSum() {
-        // minNesting defines the lowest nesting depth of the method (nesting
-        // depths are file based)
-        int res = 0;
-        int minNesting = 5000;
-        // add each nesting to the nesting sum
-        for (UUID id : featureReferences.keySet()) {
-            FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
-            res += constant.nestingDepth;
-            if (constant.nestingDepth < minNesting) minNesting = constant.nestingDepth;
+    public int GetNestingSum() {
+        if (this.nestingSum < 0) {
+            // minNesting defines the lowest nesting depth of the method (nesting
+            // depths are file based)
+            int res = 0;
+            int minNesting = 5000;
+            // add each nesting to the nesting sum
+            for (UUID id : featureReferences.keySet()) {
+                FeatureReference constant = ctx.featureExpressions.GetFeatureConstant(featureReferences.get(id), id);
+                res += constant.nestingDepth;
+                if (constant.nestingDepth < minNesting) minNesting = constant.nestingDepth;
+            }
+            // subtract the complete minNesting depth (for each added location)
+            res -= this.featureReferences.size() * minNesting;
+            this.nestingSum = res;
         }
-        // subtract the complete minNesting depth (for each added location)
-        res -= this.featureReferences.size() * minNesting;
-        this.nestingSum = res;
+        return this.nestingSum;
+    }
+
+    /**
+     * Forgets all metrics derived from the feature constants of this method so that they are recomputed on their
+     * next access.
+     */
+    private void InvalidateMetrics() {
+        this.processedLoac = -1;
+        this.numberFeatureConstantsNonDup = -1;
+        this.numberFeatureLocations = -1;
+        this.negationCount = -1;
+        this.nestingSum = -1;
+        this.smellScoresConfig = null;
     }
 
     public void InitializeNetLocMetric() {
         File file = ctx.files.FindFile(this.filePath);
-        this.netLoc = this.grossLoc;
-        for (int empty : file.emptyLines) {
-            if (empty >= this.start1 && empty <= this.end1) this.netLoc--;
-        }
+        this.netLoc = this.grossLoc - file.CountEmptyLines(this.start1, this.end1);
     }
 
     public int getNetLoc() {
@@ -428,6 +458,61 @@ public class Method {
 //    }
 
 
+    /**
+     * Computes the smell components for the weights of the given context's configuration, unless they have already
+     * been computed for that configuration.
+     */
+    public void ensureSmellScores(Context ctx) {
+        final DetectionConfig conf = ctx.config;
+        if (smellScoresConfig == conf) return;
+        final float featureLocations = GetNumberOfFeatureLocations();
+        // Loac/Loc * #FeatLocs
+        locationSmell = conf.Method_LoacToLocRatio_Weight
+                * (((float) GetLinesOfAnnotatedCode() / (float) getNetLoc()) * featureLocations);
+        // #Constants/#FeatLocs
+        constantsSmell = conf.Method_NumberOfFeatureConstants_Weight
+                * ((float) GetFeatureConstantCount() / featureLocations);
+        // NestingSum/#FeatLocs
+        nestingSmell = conf.Method_NestingSum_Weight * ((float) GetNestingSum() / featureLocations);
+        smellScoresConfig = conf;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted ratio of annotated lines of code, times the number of feature locations
+     */
+    public float GetLocationSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return locationSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted number of feature constants per feature location
+     */
+    public float GetConstantsSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return constantsSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return weighted nesting sum per feature location
+     */
+    public float GetNestingSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return nestingSmell;
+    }
+
+    /**
+     * @param ctx context whose configuration provides the weights
+     * @return the aggregated Annotation Bundle smell value, i.e., the sum of the location, constants and nesting smell
+     */
+    public float GetABSmell(Context ctx) {
+        ensureSmellScores(ctx);
+        return locationSmell + constantsSmell + nestingSmell;
+    }
+
     public boolean isSmelly() {
         return smelly;
     }
@@ -13,6 +13,7 @@ import java.util.function.Consumer;
  * The Class MethodCollection.
  */
 public class MethodCollection {
+    private final Context ctx;
     /**
      * <p>
      * Nested map of methods, which has the form
@@ -27,10 +28,23 @@ public class MethodCollection {
      */
     private Map<String, LinkedGroupingListMap<String, Method>> methodsPerFile;
 
+    /**
+     * All methods in the order returned by {@link #AllMethods()}, or <code>null</code> if it needs to be rebuilt.  Like
+     * {@link #fileOffsets} and {@link #methodIndexView}, derived from {@link #methodsPerFile} and not serialized.
+     */
+    private transient Method[] methodIndex = null;
+    /**
+     * The methods of the <code>i</code>-th file in {@link #methodsPerFile} are stored in {@link #methodIndex} from
+     * <code>fileOffsets[i]</code> (inclusive) to <code>fileOffsets[i + 1]</code> (exclusive)
+     */
+    private transient int[] fileOffsets = null;
+    private transient List<Method> methodIndexView = null;
+
     /**
      * Instantiates a new method collection.
      */
-    public MethodCollection() {
+    public MethodCollection(Context ctx) {
+        this.ctx = ctx;
         methodsPerFile = new LinkedHashMap<>();
     }
 
@@ -54,6 +68,7 @@ public class MethodCollection {
         }
 
         methodsBySignature.put(method.originalFunctionSignature, method);
+        invalidateMethodIndex();
     }
 
     /**
@@ -90,16 +105,13 @@ public class MethodCollection {
     }
 
     /**
-     * Calculate metrics for all metrics after finishing the collection
+     * Calculate metrics for all metrics after finishing the collection.  Metrics derived from the feature constants of
+     * a method are computed on demand.
      */
     public void PostAction() {
         // Maybe adjust function end positions that src2srcml got wrong.
         for (Method meth : AllMethods()) {
             meth.InitializeNetLocMetric();
-            meth.SetNegationCount();
-            meth.SetNumberOfFeatureConstantsNonDup();
-            meth.SetNumberOfFeatureLocations();
-            meth.SetNestingSum();
         }
     }
 
@@ -110,63 +122,68 @@ public class MethodCollection {
      */
     public Consumer<Writer> SerializeMethods() {
         for (Method meth : AllMethods()) {
+            // remember the LOAC before the lines it is computed from are dropped
+            meth.GetLinesOfAnnotatedCode();
             meth.loac.clear();
         }
         XStream stream = new XStream();
         Map<String, List<Method>> methodsForSerialization = new LinkedHashMap<>();
-        for (Map.Entry<String, LinkedGroupingListMap<String, Method>> e : methodsPerFile.entrySet()) {
-            String filename = e.getKey();
-            LinkedGroupingListMap<String, Method> methodBySig = e.getValue();
-            List<Method> methodList = new ArrayList<>();
-            for (List<Method> methods : methodBySig.getMap().values()) {
-                methodList.addAll(methods);
-            }
+        int iFile = 0;
+        for (String filename : methodsPerFile.keySet()) {
+            List<Method> methodList = new ArrayList<>(Arrays.asList(methodIndex).subList(fileOffsets[iFile], fileOffsets[iFile + 1]));
             methodsForSerialization.put(filename, methodList);
+            iFile++;
         }
 
         return (writer -> stream.toXML(methodsForSerialization, writer));
     }
 
-    public Iterable<Method> AllMethods() {
-        final Iterator<LinkedGroupingListMap<String, Method>> methodsBySigIt = methodsPerFile.values().iterator();
-        return new Iterable<Method>() {
-            @Override
-            public Iterator<Method> iterator() {
-                return new Iterator<Method>() {
-                    Iterator<Method> methodsIt = Collections.emptyIterator();
-
-                    @Override
-                    public boolean hasNext() {
-                        return ensureMethodsIt().hasNext();
-                    }
-
-                    @Override
-                    public Method next() {
-                        return ensureMethodsIt().next();
-                    }
-
-                    private Iterator<Method> ensureMethodsIt() {
-                        if (!methodsIt.hasNext()) {
-                            while (methodsBySigIt.hasNext()) {
-                                LinkedGroupingListMap<String, Method> methodsInNextFile = methodsBySigIt.next();
-                                List<Method> values = new ArrayList<>();
-                                for (List<Method> functions : methodsInNextFile.getMap().values()) {
-                                    values.addAll(functions);
-                                }
-                                methodsIt = values.iterator();
-                                break;
-                            }
-                        }
-                        return methodsIt;
-                    }
-
-                    @Override
-                    public void remove() {
-                        throw new UnsupportedOperationException();
-                    }
-                };
+    /**
+     * @return All methods, grouped by file (in the order the files were added) and in order of occurrence within each
+     * file.  The returned list is an unmodifiable view that is shared between callers, can be iterated any number of
+     * times and splits evenly for parallel streams.  It must not be used after further methods have been added.
+     */
+    public List<Method> AllMethods() {
+        ensureMethodIndex();
+        return methodIndexView;
+    }
+
+    private void ensureMethodIndex() {
+        if (methodIndex != null) return;
+
+        int numMethods = 0;
+        for (LinkedGroupingListMap<String, Method> methodsBySignature : methodsPerFile.values()) {
+            for (List<Method> methods : methodsBySignature.getMap().values()) {
+                numMethods += methods.size();
+            }
+        }
+
+        Method[] index = new Method[numMethods];
+        int[] offsets = new int[methodsPerFile.size() + 1];
+        int pos = 0;
+        int iFile = 0;
+        for (LinkedGroupingListMap<String, Method> methodsBySignature : methodsPerFile.values()) {
+            final int fileStart = pos;
+            offsets[iFile++] = fileStart;
+            for (List<Method> methods : methodsBySignature.getMap().values()) {
+                for (Method m : methods) {
+                    index[pos++] = m;
+                }
             }
-        };
+            // methods with the same signature are grouped together in the map, so restore the order of occurrence
+            Arrays.sort(index, fileStart, pos, Method.COMP_BY_OCCURRENCE);
+        }
+        offsets[iFile] = pos;
+
+        this.methodIndex = index;
+        this.fileOffsets = offsets;
+        this.methodIndexView = Collections.unmodifiableList(Arrays.asList(index));
+    }
+
+    private void invalidateMethodIndex() {
+        this.methodIndex = null;
+        this.fileOffsets = null;
+        this.methodIndexView = null;
     }
 
     /**
@@ -179,10 +196,16 @@ public class MethodCollection {
         Map<String, List<Method>> deserializedMethods = (Map<String, List<Method>>) stream.fromXML(xmlFileReader);
         for (Map.Entry<String, List<Method>> e : deserializedMethods.entrySet()) {
             final LinkedGroupingListMap<String, Method> methodsBySignature = new LinkedGroupingListMap<>();
-            methodsPerFile.put(e.getKey(), methodsBySignature);
+            methodsPerFile.put(ctx.strings.canonical(e.getKey()), methodsBySignature);
             for (Method f : e.getValue()) {
+                // XStream creates a copy of each path and feature name per method, so share them again
+                f.filePath = ctx.strings.canonical(f.filePath);
+                for (Map.Entry<UUID, String> ref : f.featureReferences.entrySet()) {
+                    ref.setValue(ctx.strings.canonical(ref.getValue()));
+                }
                 methodsBySignature.put(f.originalFunctionSignature, f);
             }
         }
+        invalidateMethodIndex();
     }
 }
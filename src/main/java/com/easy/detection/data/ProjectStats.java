@@ -0,0 +1,240 @@
+package com.easy.detection.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Project-wide totals and distributions, computed in a single pass over the entities of a {@link Context} once the
+ * project has been read.  The snapshot is immutable; it does not change when entities are added later on.
+ *
+ * @see Context#GetProjectStats()
+ */
+public final class ProjectStats {
+    /**
+     * Sorted values of one metric over a set of entities
+     */
+    public static final class Distribution {
+        private final int[] sorted;
+        private final long sum;
+
+        Distribution(int[] values) {
+            this.sorted = values.clone();
+            Arrays.sort(this.sorted);
+            long s = 0;
+            for (int v : this.sorted) {
+                s += v;
+            }
+            this.sum = s;
+        }
+
+        /**
+         * @return the number of values
+         */
+        public int GetCount() {
+            return sorted.length;
+        }
+
+        public long GetSum() {
+            return sum;
+        }
+
+        /**
+         * @return the smallest value, or 0 if there are no values
+         */
+        public int GetMin() {
+            return sorted.length == 0 ? 0 : sorted[0];
+        }
+
+        /**
+         * @return the largest value, or 0 if there are no values
+         */
+        public int GetMax() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        /**
+         * @return the arithmetic mean, or 0 if there are no values
+         */
+        public double GetMean() {
+            return sorted.length == 0 ? 0.0 : ((double) sum) / sorted.length;
+        }
+
+        /**
+         * @return the median, or 0 if there are no values
+         */
+        public double GetMedian() {
+            return GetPercentile(50.0);
+        }
+
+        /**
+         * Gets a percentile, interpolating linearly between the two closest ranks.
+         *
+         * @param p the percentile, between 0 and 100
+         * @return the value below which <code>p</code> percent of the values fall, or 0 if there are no values
+         */
+        public double GetPercentile(double p) {
+            if (p < 0.0 || p > 100.0 || Double.isNaN(p)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100, got " + p);
+            }
+            if (sorted.length == 0) return 0.0;
+            final double rank = (p / 100.0) * (sorted.length - 1);
+            final int lower = (int) Math.floor(rank);
+            final int upper = (int) Math.ceil(rank);
+            return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+        }
+    }
+
+    private final int files;
+    private final int functions;
+    private final int features;
+    private final int loc;
+    private final int loac;
+    private final int nofl;
+    private final int featureConstantReferences;
+    private final int meanLofc;
+    private final Distribution lofc;
+    private final Distribution nofc;
+    private final Distribution nestingDepth;
+    private final Map<EnumGranularity, Integer> referencesByGranularity;
+
+    private ProjectStats(Context ctx) {
+        final Collection<File> allFiles = ctx.files.AllFiles();
+        this.files = allFiles.size();
+        this.functions = ctx.functions.AllMethods().size();
+        int loacSum = 0;
+        int noflSum = 0;
+        for (File f : allFiles) {
+            loacSum += f.GetLinesOfAnnotatedCode();
+            noflSum += f.GetNumberOfFeatureLocations();
+        }
+        this.loac = loacSum;
+        this.nofl = noflSum;
+
+        final FeatureExpressionCollection featureExpressions = ctx.featureExpressions;
+        this.features = featureExpressions.GetCount();
+        this.loc = featureExpressions.GetLoc();
+        this.featureConstantReferences = featureExpressions.numberOfFeatureConstantReferences;
+        this.meanLofc = featureExpressions.GetMeanLofc();
+
+        final int[] lofcValues = new int[this.features];
+        final int[] nofcValues = new int[this.features];
+        final int[] nestingValues = new int[this.features];
+        final int[] granularityCounts = new int[EnumGranularity.values().length];
+        int i = 0;
+        for (Feature feat : featureExpressions.GetFeatures()) {
+            lofcValues[i] = feat.getLofc();
+            nofcValues[i] = feat.GetReferenceCount();
+            nestingValues[i] = feat.maxNestingDepth;
+            i++;
+            for (FeatureReference ref : feat.references.values()) {
+                granularityCounts[ref.granularity.ordinal()]++;
+            }
+        }
+        this.lofc = new Distribution(lofcValues);
+        this.nofc = new Distribution(nofcValues);
+        this.nestingDepth = new Distribution(nestingValues);
+        Map<EnumGranularity, Integer> byGranularity = new EnumMap<>(EnumGranularity.class);
+        for (EnumGranularity g : EnumGranularity.values()) {
+            byGranularity.put(g, granularityCounts[g.ordinal()]);
+        }
+        this.referencesByGranularity = byGranularity;
+    }
+
+    /**
+     * Computes the statistics of the entities currently held by the given context.
+     *
+     * @param ctx the context of the project
+     * @return a new snapshot
+     */
+    static ProjectStats Compute(Context ctx) {
+        return new ProjectStats(ctx);
+    }
+
+    /**
+     * @return the number of files
+     */
+    public int GetFileCount() {
+        return files;
+    }
+
+    /**
+     * @return the number of functions
+     */
+    public int GetFunctionCount() {
+        return functions;
+    }
+
+    /**
+     * @return the number of features
+     */
+    public int GetFeatureCount() {
+        return features;
+    }
+
+    /**
+     * @return the lines of code of the project, as counted by cppstats
+     */
+    public int GetLoc() {
+        return loc;
+    }
+
+    /**
+     * @return the lines of annotated code, summed over all files
+     */
+    public int GetLoac() {
+        return loac;
+    }
+
+    /**
+     * @return the number of feature locations, summed over all files
+     */
+    public int GetNofl() {
+        return nofl;
+    }
+
+    /**
+     * @return the number of times any feature constant has been mentioned
+     */
+    public int GetFeatureConstantReferences() {
+        return featureConstantReferences;
+    }
+
+    /**
+     * @return the mean lines of feature code per feature, rounded down, as used by the detection
+     * @see FeatureExpressionCollection#GetMeanLofc()
+     */
+    public int GetMeanLofc() {
+        return meanLofc;
+    }
+
+    /**
+     * @return the lines of feature code of all features
+     */
+    public Distribution GetLofc() {
+        return lofc;
+    }
+
+    /**
+     * @return the number of feature constant references of all features
+     */
+    public Distribution GetNofc() {
+        return nofc;
+    }
+
+    /**
+     * @return the maximum nesting depth of all features
+     */
+    public Distribution GetNestingDepth() {
+        return nestingDepth;
+    }
+
+    /**
+     * @param granularity a granularity
+     * @return the number of feature constant references of the given granularity
+     */
+    public int GetReferenceCount(EnumGranularity granularity) {
+        return referencesByGranularity.get(granularity);
+    }
+}
@@ -1,11 +1,16 @@
 package com.easy.detection.detector;
 
+import com.easy.detection.data.Context;
 import com.easy.util.FileUtils;
+import com.easy.util.QuantileSketch;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 //@formatter:off
 public class DetectionConfig {
@@ -154,6 +159,111 @@ public class DetectionConfig {
     public int SetValues = 0;
     private String configFilePath;
 
+    /**
+     * Thresholds given as a percentile of their metric, e.g., <code>Method_NestingSum=p95</code>, by name.  They only
+     * take effect once {@link #resolvePercentileThresholds(Context)} has set the corresponding fields for a project.
+     */
+    private final Map<String, Double> percentileThresholds = new LinkedHashMap<>();
+
+    /**
+     * Sets the value of a threshold
+     */
+    private interface ValueSetter {
+        void set(DetectionConfig config, double value);
+    }
+
+    /**
+     * Sets whether a threshold is mandatory and its weight
+     */
+    private interface ModifierSetter {
+        void set(DetectionConfig config, boolean mandatory, float weight);
+    }
+
+    /**
+     * A threshold that can be set in a configuration file
+     */
+    private static final class Threshold {
+        /**
+         * <code>true</code> for ratios, which take any number, <code>false</code> for amounts, which take integers
+         */
+        final boolean ratio;
+        final ValueSetter value;
+        final ModifierSetter modifiers;
+
+        Threshold(boolean ratio, ValueSetter value, ModifierSetter modifiers) {
+            this.ratio = ratio;
+            this.value = value;
+            this.modifiers = modifiers;
+        }
+
+        /**
+         * @return the value that disables the threshold
+         */
+        double disabledValue() {
+            return ratio ? Double.NaN : -1;
+        }
+    }
+
+    /**
+     * All thresholds by name.  The names are those of the fields they set.
+     */
+    private static final Map<String, Threshold> THRESHOLDS = new HashMap<>();
+
+    private static void ratio(String name, ValueSetter value, ModifierSetter modifiers) {
+        THRESHOLDS.put(name, new Threshold(true, value, modifiers));
+    }
+
+    private static void amount(String name, ValueSetter value, ModifierSetter modifiers) {
+        THRESHOLDS.put(name, new Threshold(false, value, modifiers));
+    }
+
+    static {
+        ratio("Feature_MeanLofcRatio", (c, v) -> c.Feature_MeanLofcRatio = v,
+                (c, m, w) -> { c.Feature_MeanLofcRatio_Mand = m; c.Feature_MeanLofcRatio_Weight = w; });
+        ratio("Feature_ProjectLocRatio", (c, v) -> c.Feature_ProjectLocRatio = v,
+                (c, m, w) -> { c.Feature_ProjectLocRatio_Mand = m; c.Feature_ProjectLocRatio_Weight = w; });
+        ratio("Feature_NoFeatureConstantsRatio", (c, v) -> c.Feature_NoFeatureConstantsRatio = v,
+                (c, m, w) -> { c.Feature_NoFeatureConstantsRatio_Mand = m; c.Feature_NoFeatureConstantsRatio_Weight = w; });
+        amount("Feature_NumberOfCompilUnits", (c, v) -> c.Feature_NumberOfCompilUnits = v,
+                (c, m, w) -> { c.Feature_NumberOfCompilUnits_Mand = m; c.Feature_NumberOfCompilUnits_Weight = w; });
+        amount("Feature_NumberLofc", (c, v) -> c.Feature_NumberLofc = v,
+                (c, m, w) -> { c.Feature_NumberLofc_Mand = m; c.Feature_NumberLofc_Weight = w; });
+        amount("Feature_NumberNofc", (c, v) -> c.Feature_NumberNofc = v,
+                (c, m, w) -> { c.Feature_NumberNofc_Mand = m; c.Feature_NumberNofc_Weight = w; });
+        ratio("Method_LofcToLocRatio", (c, v) -> c.Method_LofcToLocRatio = v,
+                (c, m, w) -> { c.Method_LofcToLocRatio_Mand = m; c.Method_LofcToLocRatio_Weight = w; });
+        ratio("Method_LoacToLocRatio", (c, v) -> c.Method_LoacToLocRatio = v,
+                (c, m, w) -> { c.Method_LoacToLocRatio_Mand = m; c.Method_LoacToLocRatio_Weight = w; });
+        amount("Method_NumberOfFeatureConstants", (c, v) -> c.Method_NumberOfFeatureConstants = (int) v,
+                (c, m, w) -> { c.Method_NumberOfFeatureConstants_Mand = m; c.Method_NumberOfFeatureConstants_Weight = w; });
+        amount("Method_NumberOfFeatureConstantsNonDup", (c, v) -> c.Method_NumberOfFeatureConstantsNonDup = (int) v,
+                (c, m, w) -> { c.Method_NumberOfFeatureConstantsNonDup_Mand = m; c.Method_NumberOfFeatureConstantsNonDup_Weight = w; });
+        amount("Method_NestingSum", (c, v) -> c.Method_NestingSum = (int) v,
+                (c, m, w) -> { c.Method_NestingSum_Mand = m; c.Method_NestingSum_Weight = w; });
+        amount("Method_NestingDepthMin", (c, v) -> c.Method_NestingDepthMin = (int) v,
+                (c, m, w) -> { c.Method_NestingDepthMin_Mand = m; c.Method_NestingDepthMin_Weight = w; });
+        amount("Method_NegationCount", (c, v) -> c.Method_NegationCount = (int) v,
+                (c, m, w) -> { c.Method_NegationCount_Mand = m; c.Method_NegationCount_Weight = w; });
+        amount("Method_NumberOfFeatureLocations", (c, v) -> c.Method_NumberOfFeatureLocations = (int) v,
+                (c, m, w) -> { c.Method_NumberOfFeatureLocations_Mand = m; c.Method_NumberOfFeatureLocations_Weight = w; });
+        ratio("File_LofcToLocRatio", (c, v) -> c.File_LofcToLocRatio = v,
+                (c, m, w) -> { c.File_LofcToLocRatio_Mand = m; c.File_LofcToLocRatio_Weight = w; });
+        ratio("File_LoacToLocRatio", (c, v) -> c.File_LoacToLocRatio = v,
+                (c, m, w) -> { c.File_LoacToLocRatio_Mand = m; c.File_LoacToLocRatio_Weight = w; });
+        amount("File_NumberOfFeatureConstants", (c, v) -> c.File_NumberOfFeatureConstants = (int) v,
+                (c, m, w) -> { c.File_NumberOfFeatureConstants_Mand = m; c.File_NumberOfFeatureConstants_Weight = w; });
+        amount("File_NumberOfFeatureConstantsNonDup", (c, v) -> c.File_NumberOfFeatureConstantsNonDup = (int) v,
+                (c, m, w) -> { c.File_NumberOfFeatureConstantsNonDup_Mand = m; c.File_NumberOfFeatureConstantsNonDup_Weight = w; });
+        amount("File_NestingSum", (c, v) -> c.File_NestingSum = (int) v,
+                (c, m, w) -> { c.File_NestingSum_Mand = m; c.File_NestingSum_Weight = w; });
+        amount("File_NestingDepthMin", (c, v) -> c.File_NestingDepthMin = (int) v,
+                (c, m, w) -> { c.File_NestingDepthMin_Mand = m; c.File_NestingDepthMin_Weight = w; });
+        amount("File_NegationCount", (c, v) -> c.File_NegationCount = (int) v,
+                (c, m, w) -> { c.File_NegationCount_Mand = m; c.File_NegationCount_Weight = w; });
+        amount("File_NumberOfFeatureLocations", (c, v) -> c.File_NumberOfFeatureLocations = (int) v,
+                (c, m, w) -> { c.File_NumberOfFeatureLocations_Mand = m; c.File_NumberOfFeatureLocations_Weight = w; });
+    }
+
     /**
      * Instantiates a new detection config.
      *
@@ -161,67 +271,108 @@ public class DetectionConfig {
      *            the path to file
      * @throws IOException
      *             IOException if the file can not be read properly
-     * @throws SecurityException
-     * @throws NoSuchFieldException
-     * @throws IllegalAccessException
-     * @throws IllegalArgumentException
-     * @throws NumberFormatException
+     * @throws DetectionConfigException
+     *             if the file contains invalid lines
      */
-    public DetectionConfig(String pathToFile) throws IOException, NoSuchFieldException, SecurityException,
-            NumberFormatException, IllegalArgumentException, IllegalAccessException {
-        this.configFilePath = pathToFile;
+    public DetectionConfig(String pathToFile) throws IOException, DetectionConfigException {
+        this(pathToFile, FileUtils.readLines(new File(pathToFile)));
+    }
 
-        //get the smell type of the configuration file
-        this.type = pathToFile.substring(pathToFile.lastIndexOf("/") + 1);
+    /**
+     * Instantiates a detection config from lines in the format of a configuration file, e.g., lines received over the
+     * network.  All lines are checked before reporting any error, so that all errors can be fixed at once.
+     *
+     * @param name
+     *            name of the configuration, used in place of the path of the configuration file
+     * @param lines
+     *            the lines of the configuration
+     * @throws DetectionConfigException
+     *             if a line refers to an unknown threshold or has an invalid value or modifier
+     */
+    public DetectionConfig(String name, List<String> lines) throws DetectionConfigException {
+        this.configFilePath = name;
 
-        // read all lines of the configuration file
-        List<String> lines = FileUtils.readLines(new File(pathToFile));
+        //get the smell type of the configuration file
+        this.type = name.substring(name.lastIndexOf("/") + 1);
 
+        List<String> errors = new ArrayList<>();
+        int lineNo = 0;
         for (String line : lines) {
+            lineNo++;
+            // remove unnecessary white spaces
+            line = line.trim();
             // "#" are commentaries
-            if (!line.startsWith("#") && !line.isEmpty()) {
-                // remove unnecessary white spaces
-                line = line.trim();
-
-                // check for mandatory value
-                boolean mandatory = false;
-                float weight = 1;
-                if (line.contains(";")) {
-                    String[] split = line.split(";");
-
-                    if (split.length > 1 && split[1].equals("mandatory"))
-                        mandatory = true;
-                    else if (split.length > 1 && split[1].matches("(\\d)+(\\.)(\\d)+"))
-                        weight = Float.parseFloat(split[1].trim());
-
-                    if (split.length == 3 && split[2].equals("mandatory"))
-                        mandatory = true;
-                    else if (split.length == 3 && split[2].matches("(\\d)+(\\.)(\\d)+"))
-                        weight = Float.parseFloat(split[2].trim());
-
-                    line = split[0];
-                }
-
-                // split input with =; [0] == fieldname; [1] == value
-                String[] split = line.split("=");
-
-                // get field by name
-                Class<DetectionConfig> thisClass = (Class<DetectionConfig>) this.getClass();
-                Field current = thisClass.getField(split[0]);
-
-                // set value (ratio needs double value, threshold needs int)
-                if (split[0].contains("Ratio"))
-                    current.setDouble(this, Double.parseDouble(split[1].trim()));
-                else
-                    current.setInt(this, Integer.parseInt(split[1].trim()));
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String error = parseLine(line);
+            if (error != null) errors.add("line " + lineNo + ": " + error);
+        }
+        if (!errors.isEmpty()) throw new DetectionConfigException(name, errors);
+    }
 
-                // set mandatory value
-                thisClass.getField(split[0] + "_Mand").setBoolean(this, mandatory);
+    /**
+     * Sets the threshold defined by a line of the form <code>NAME=VALUE[;MODIFIER[;MODIFIER]]</code>, where each
+     * modifier is either <code>mandatory</code> or a weight.  The value is a number for ratios, an integer for amounts
+     * or <code>pN</code> for the N-th percentile.
+     *
+     * @param line a line of the configuration, without leading or trailing white space
+     * @return <code>null</code> on success, otherwise a description of the error
+     */
+    private String parseLine(String line) {
+        final int eq = line.indexOf('=');
+        if (eq == -1) return "expected NAME=VALUE, got `" + line + "'";
+        final String name = line.substring(0, eq).trim();
+        final Threshold threshold = THRESHOLDS.get(name);
+        if (threshold == null) return "unknown threshold `" + name + "'";
+
+        int semi = line.indexOf(';', eq + 1);
+        final String value = line.substring(eq + 1, (semi == -1) ? line.length() : semi).trim();
+
+        // check for mandatory value and weight
+        boolean mandatory = false;
+        float weight = 1;
+        int numModifiers = 0;
+        while (semi != -1) {
+            final int next = line.indexOf(';', semi + 1);
+            final String modifier = line.substring(semi + 1, (next == -1) ? line.length() : next).trim();
+            if (++numModifiers > 2) return "too many modifiers for " + name;
+            if (modifier.equals("mandatory")) {
+                mandatory = true;
+            } else {
+                try {
+                    weight = Float.parseFloat(modifier);
+                } catch (NumberFormatException e) {
+                    weight = Float.NaN;
+                }
+                if (Float.isNaN(weight) || Float.isInfinite(weight))
+                    return "invalid modifier `" + modifier + "' for " + name + ", expected `mandatory' or a weight";
+            }
+            semi = next;
+        }
 
-                // set weight value
-                thisClass.getField(split[0] + "_Weight").setFloat(this, weight);
+        // "p" marks a percentile, which is only turned into a value when the project is known
+        if (value.startsWith("p")) {
+            final double percentile;
+            try {
+                percentile = Double.parseDouble(value.substring(1));
+            } catch (NumberFormatException e) {
+                return "invalid percentile `" + value + "' for " + name;
+            }
+            if (!(percentile >= 0 && percentile <= 100))
+                return "percentile for " + name + " must be between 0 and 100, got " + value;
+            percentileThresholds.put(name, percentile);
+        } else {
+            final double v;
+            try {
+                // ratio needs double value, threshold needs int
+                v = threshold.ratio ? Double.parseDouble(value) : Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return "invalid value `" + value + "' for " + name + ", expected " + (threshold.ratio ? "a number" : "an integer");
             }
+            percentileThresholds.remove(name);
+            threshold.value.set(this, v);
         }
+        threshold.modifiers.set(this, mandatory, weight);
+        return null;
     }
 
     @Override
@@ -305,9 +456,61 @@ public class DetectionConfig {
             res += "\r\nAmount - Number of negations: " + this.File_NegationCount + "; mandatory="
                     + this.File_NegationCount_Mand;
 
+        if (!percentileThresholds.isEmpty()) {
+            res += "\r\n\r\n[Percentile-based Values]";
+            for (Map.Entry<String, Double> e : percentileThresholds.entrySet()) {
+                double p = e.getValue();
+                res += "\r\n" + e.getKey() + ": " + (p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p))
+                        + "th percentile";
+            }
+        }
+
         return res;
     }
 
+    /**
+     * @return <code>true</code> if some thresholds are given as percentiles
+     */
+    public boolean hasPercentileThresholds() {
+        return !percentileThresholds.isEmpty();
+    }
+
+    /**
+     * Sets each threshold given as a percentile to that percentile of its metric's values in the given project.  The
+     * percentile is taken over the annotated entities only, i.e., the methods, files, features or nesting bundles
+     * with at least one feature constant.  Unannotated entities can never be smelly, and as they make up most of a
+     * project, counting their values of 0 would drag the percentile down to 0.  The values are streamed through a
+     * {@link QuantileSketch}, so they are neither stored nor sorted.  Thresholds whose metric has no values at all are
+     * disabled.
+     *
+     * @param ctx the project to be checked
+     */
+    public void resolvePercentileThresholds(Context ctx) {
+        for (Map.Entry<String, Double> e : percentileThresholds.entrySet()) {
+            final String name = e.getKey();
+            final ThresholdSweep.Metric metric = ThresholdSweep.Metric.valueOf(name);
+            final QuantileSketch sketch = new QuantileSketch();
+            metric.collect(ctx, (v, numReferences, entity) -> {
+                if (numReferences > 0) sketch.add(v);
+            });
+            final Threshold threshold = THRESHOLDS.get(name);
+            if (sketch.isEmpty()) {
+                threshold.value.set(this, threshold.disabledValue());
+                continue;
+            }
+            double value = sketch.quantile(e.getValue() / 100.0);
+            if (!threshold.ratio) {
+                // The metric values are integers, so rounding towards them selects the same entities.
+                value = metric.inclusive ? Math.ceil(value) : Math.floor(value);
+            } else if (value == Double.POSITIVE_INFINITY) {
+                // Ratios with a denominator of 0 are infinite.  The detector checks such ratios as
+                // numerator >= threshold * denominator, which only a finite threshold satisfies.
+                value = Double.MAX_VALUE;
+            }
+            threshold.value.set(this, value);
+        }
+    }
+
     // TODO Annotation File --> selbe wie bundle, nur auf file ebene
     // TODO Speculative Generalty
     // TODO In Output für jede Reason die entsprechende Zahl noch anzeigen
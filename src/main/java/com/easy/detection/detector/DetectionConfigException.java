@@ -0,0 +1,39 @@
+package com.easy.detection.detector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception to be thrown when a code smell configuration contains invalid lines.  It lists all errors of the
+ * configuration, not just the first one.
+ */
+public class DetectionConfigException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> errors;
+
+    /**
+     * @param name   name of the configuration, usually the path of its file
+     * @param errors the errors, one per invalid line
+     */
+    public DetectionConfigException(String name, List<String> errors) {
+        super(formatMessage(name, errors));
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    /**
+     * @return the errors, one per invalid line, each prefixed with its line number
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    private static String formatMessage(String name, List<String> errors) {
+        StringBuilder sb = new StringBuilder("Invalid code smell configuration ").append(name).append(':');
+        for (String error : errors) {
+            sb.append(System.lineSeparator()).append("  ").append(error);
+        }
+        return sb.toString();
+    }
+}
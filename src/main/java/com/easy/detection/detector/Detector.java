@@ -35,13 +35,19 @@ public class Detector {
 
     /**
      * Perform the detection based on the configuration and return fitting
-     * features.
+     * features. Along with the checks, the weighted smell scores of each
+     * method, file and feature are computed and cached in the entity (see
+     * {@link Method#GetABSmell(Context)}, {@link File#GetAFSmell(Context)},
+     * {@link Feature#GetLGSmell(Context)} and
+     * {@link Feature#GetSSSmell(Context)}), so ranking and threshold sweeps
+     * read them instead of computing them again.
      *
      * @return a list with fitting features
      */
     public Map<FeatureReference, List<SmellReason>> Perform() {
         System.out.println(
                 "... Start detection based on the config file " + FileUtils.relPath(ctx.config.configFilePath()) + " ...");
+        ctx.config.resolvePercentileThresholds(ctx);
         checkFeatureCollection();
         checkMethodCollection();
         checkFileCollection();
@@ -112,6 +118,7 @@ public class Detector {
             checkMethodForNumberNegations(meth);
             checkForMethodNestingSum(meth);
             checkForMethodNestingDepthMax(meth);
+            meth.ensureSmellScores(ctx);
         }
     }
 
@@ -133,6 +140,7 @@ public class Detector {
             checkFileForNumberNegations(file);
             checkForFileNestingSum(file);
             checkForFileNestingDepthMax(file);
+            file.ensureSmellScores(ctx);
         }
     }
 
@@ -153,6 +161,7 @@ public class Detector {
                 // check for features that are bigger than the mean lofc
                 checkForFeatureToFeatureRatio(constant);
             }
+            feat.ensureSmellScores(ctx);
         }
     }
 
@@ -253,7 +262,7 @@ public class Detector {
         final DetectionConfig config = ctx.config;
 
         if (config.Method_NumberOfFeatureConstantsNonDup != -1) {
-            if (meth.numberFeatureConstantsNonDup > config.Method_NumberOfFeatureConstantsNonDup) {
+            if (meth.GetNumberOfFeatureConstantsNonDup() > config.Method_NumberOfFeatureConstantsNonDup) {
                 for (UUID id : meth.featureReferences.keySet()) {
                     FeatureReference constant = ctx.featureExpressions
                             .GetFeatureConstant(meth.featureReferences.get(id), id);
@@ -273,7 +282,7 @@ public class Detector {
         final DetectionConfig config = ctx.config;
 
         if (config.Method_NegationCount != -1) {
-            if (meth.negationCount > config.Method_NegationCount) for (UUID id : meth.featureReferences.keySet()) {
+            if (meth.GetNegationCount() > config.Method_NegationCount) for (UUID id : meth.featureReferences.keySet()) {
                 FeatureReference constant = ctx.featureExpressions
                         .GetFeatureConstant(meth.featureReferences.get(id), id);
                 this.addFeatureLocWithReason(constant, SmellReason.ANNOTATIONBUNDLE_NUMBERNEGATIONS);
@@ -291,7 +300,7 @@ public class Detector {
     private void checkForMethodNestingSum(Method meth) {
         final DetectionConfig config = ctx.config;
         if (config.Method_NestingSum != -1) {
-            if (meth.nestingSum >= config.Method_NestingSum) for (UUID id : meth.featureReferences.keySet()) {
+            if (meth.GetNestingSum() >= config.Method_NestingSum) for (UUID id : meth.featureReferences.keySet()) {
                 FeatureReference constant = ctx.featureExpressions
                         .GetFeatureConstant(meth.featureReferences.get(id), id);
                 this.addFeatureLocWithReason(constant, SmellReason.ANNOTATIONBUNDLE_NUMBERNESTINGSUM);
@@ -309,52 +318,8 @@ public class Detector {
     private void checkForMethodNestingDepthMax(Method meth) {
         final DetectionConfig config = ctx.config;
         if (config.Method_NestingDepthMin != -1) {
-            // check nesting via stacks and nesting depth
-            Stack<FeatureReference> nestingStack = new Stack<>();
-            int beginNesting = -1;
-            for (UUID id : meth.featureReferences.keySet()) {
-                FeatureReference constant = ctx.featureExpressions
-                        .GetFeatureConstant(meth.featureReferences.get(id), id);
-                // add the item instantly if the stack is empty, set the
-                // beginning nesting depth to the nd of the loc (nesting depth
-                // is file-based not method based)
-                if (nestingStack.isEmpty()) {
-                    beginNesting = constant.nestingDepth;
-                    nestingStack.push(constant);
-                } else {
-                    // current nesting in consideration with starting location
-                    int curNesting = constant.nestingDepth - beginNesting;
-                    // 0 is the beginning nesting degree, everything higher than
-                    // zero means it is a nested location
-                    if (curNesting > 0)
-                        nestingStack.push(constant);
-                    else {
-                        // calculate nestingdepth of bundle
-                        int ndm = -1;
-                        for (FeatureReference current : nestingStack)
-                            if ((current.nestingDepth - beginNesting) > ndm) ndm = current.nestingDepth - beginNesting;
-                        // if the ndm of the bundle is higher than the
-                        // configuration add all to the result
-                        if (ndm >= config.Method_NestingDepthMin) {
-                            while (!nestingStack.isEmpty())
-                                this.addFeatureLocWithReason(nestingStack.pop(),
-                                        SmellReason.ANNOTATIONBUNDLE_NUMBERNESTINGDEPTHMIN);
-                        } else nestingStack.empty();
-                    }
-                }
-            }
-            // final emptiing if something is left
-            if (!nestingStack.isEmpty()) {
-                // calculate nestingdepth of bundle
-                int ndm = -1;
-                for (FeatureReference current : nestingStack)
-                    if ((current.nestingDepth - beginNesting) > ndm) ndm = current.nestingDepth - beginNesting;
-                if (ndm >= config.Method_NestingDepthMin) {
-                    while (!nestingStack.isEmpty())
-                        this.addFeatureLocWithReason(nestingStack.pop(),
-                                SmellReason.ANNOTATIONBUNDLE_NUMBERNESTINGDEPTHMIN);
-                } else nestingStack.empty();
-            }
+            checkNestingBundles(meth.featureReferences, config.Method_NestingDepthMin,
+                    SmellReason.ANNOTATIONBUNDLE_NUMBERNESTINGDEPTHMIN);
         }
     }
 
@@ -450,7 +415,7 @@ public class Detector {
     private void checkFileForNumberFeatureConstantsNonDup(File file) {
         final DetectionConfig config = ctx.config;
         if (config.File_NumberOfFeatureConstantsNonDup != -1) {
-            if (file.numberFeatureConstantsNonDup > config.File_NumberOfFeatureConstantsNonDup) {
+            if (file.GetNumberOfFeatureConstantsNonDup() > config.File_NumberOfFeatureConstantsNonDup) {
                 for (UUID id : file.featureConstants.keySet()) {
                     FeatureReference constant = ctx.featureExpressions
                             .GetFeatureConstant(file.featureConstants.get(id), id);
@@ -469,7 +434,7 @@ public class Detector {
     private void checkFileForNumberNegations(File file) {
         final DetectionConfig config = ctx.config;
         if (config.File_NegationCount != -1) {
-            if (file.negationCount > config.File_NegationCount) for (UUID id : file.featureConstants.keySet()) {
+            if (file.GetNegationCount() > config.File_NegationCount) for (UUID id : file.featureConstants.keySet()) {
                 FeatureReference constant = ctx.featureExpressions
                         .GetFeatureConstant(file.featureConstants.get(id), id);
                 this.addFeatureLocWithReason(constant, SmellReason.ANNOTATIONFILE_NUMBERNEGATIONS);
@@ -487,7 +452,7 @@ public class Detector {
     private void checkForFileNestingSum(File file) {
         final DetectionConfig config = ctx.config;
         if (config.File_NestingSum != -1) {
-            if (file.nestingSum >= config.File_NestingSum) for (UUID id : file.featureConstants.keySet()) {
+            if (file.GetNestingSum() >= config.File_NestingSum) for (UUID id : file.featureConstants.keySet()) {
                 FeatureReference constant = ctx.featureExpressions
                         .GetFeatureConstant(file.featureConstants.get(id), id);
                 this.addFeatureLocWithReason(constant, SmellReason.ANNOTATIONFILE_NUMBERNESTINGSUM);
@@ -505,55 +470,61 @@ public class Detector {
     private void checkForFileNestingDepthMax(File file) {
         final DetectionConfig config = ctx.config;
         if (config.File_NestingDepthMin != -1) {
-            // check nesting via stacks and nesting depth
-            Stack<FeatureReference> nestingStack = new Stack<>();
-            int beginNesting = -1;
-            for (UUID id : file.featureConstants.keySet()) {
-                FeatureReference constant = ctx.featureExpressions
-                        .GetFeatureConstant(file.featureConstants.get(id), id);
-                // add the item instantly if the stack is empty, set the
-                // beginning nesting depth to the nd of the loc (nesting depth
-                // is file-based not method based)
-                if (nestingStack.isEmpty()) {
-                    beginNesting = constant.nestingDepth;
-                    nestingStack.push(constant);
-                } else {
-                    // current nesting in consideration with starting location
-                    int curNesting = constant.nestingDepth - beginNesting;
-                    // 0 is the beginning nesting degree, everything higher than
-                    // zero means it is a nested location
-                    if (curNesting > 0)
-                        nestingStack.push(constant);
-                    else {
-                        // calculate nestingdepth of bundle
-                        int ndm = -1;
-                        for (FeatureReference current : nestingStack)
-                            if ((current.nestingDepth - beginNesting) > ndm) ndm = current.nestingDepth - beginNesting;
-                        // if the ndm of the bundle is higher than the
-                        // configuration add all to the result
-                        if (ndm >= config.File_NestingDepthMin) {
-                            while (!nestingStack.isEmpty())
-                                this.addFeatureLocWithReason(nestingStack.pop(),
-                                        SmellReason.ANNOTATIONFILE_NUMBERNESTINGDEPTHMIN);
-                        } else nestingStack.empty();
-                    }
-                }
-            }
-            // final emptiing if something is left
-            if (!nestingStack.isEmpty()) {
-                // calculate nestingdepth of bundle
-                int ndm = -1;
-                for (FeatureReference current : nestingStack)
-                    if ((current.nestingDepth - beginNesting) > ndm) ndm = current.nestingDepth - beginNesting;
-                if (ndm >= config.File_NestingDepthMin) {
-                    while (!nestingStack.isEmpty())
-                        this.addFeatureLocWithReason(nestingStack.pop(),
-                                SmellReason.ANNOTATIONFILE_NUMBERNESTINGDEPTHMIN);
-                } else nestingStack.empty();
+            checkNestingBundles(file.featureConstants, config.File_NestingDepthMin,
+                    SmellReason.ANNOTATIONFILE_NUMBERNESTINGDEPTHMIN);
+        }
+    }
+
+    /**
+     * Walks the annotation trees of the given feature constants. Each constant
+     * whose parent does not belong to the same method or file starts a nesting
+     * bundle, consisting of the constant and everything nested inside it. If
+     * the nesting depth of a bundle (relative to its first constant) reaches
+     * the threshold, all constants of the bundle are added to the result.
+     * <p>
+     * Bundles are independent of each other and of the order of the
+     * constants. The former stack-based check instead kept growing a bundle
+     * that did not reach the threshold with all nested constants that came
+     * after it, and skipped the top-level constant that ended a bundle.
+     * </p>
+     *
+     * @param featureConstants the feature constants of a method or file
+     * @param threshold        minimal nesting depth of a smelly bundle
+     * @param reason           the reason to add
+     */
+    private void checkNestingBundles(Map<UUID, String> featureConstants, int threshold, SmellReason reason) {
+        List<FeatureReference> bundle = new ArrayList<>();
+        for (UUID id : featureConstants.keySet()) {
+            FeatureReference root = ctx.featureExpressions.GetFeatureConstant(featureConstants.get(id), id);
+            if ((root.parent != null) && featureConstants.containsKey(root.parent.id)) continue;
+            bundle.clear();
+            int ndm = collectNestingBundle(root, featureConstants, bundle) - root.nestingDepth;
+            if (ndm >= threshold) {
+                for (FeatureReference constant : bundle)
+                    this.addFeatureLocWithReason(constant, reason);
             }
         }
     }
 
+    /**
+     * Adds the given constant and all constants nested inside it that belong
+     * to the same method or file to the bundle.
+     *
+     * @return the maximal nesting depth within the bundle
+     */
+    static int collectNestingBundle(FeatureReference constant, Map<UUID, String> featureConstants,
+                                    List<FeatureReference> bundle) {
+        bundle.add(constant);
+        int maxNestingDepth = constant.nestingDepth;
+        // intermediate data saved before the annotation tree existed has no children
+        if (constant.children == null) return maxNestingDepth;
+        for (FeatureReference child : constant.children) {
+            if (!featureConstants.containsKey(child.id)) continue;
+            maxNestingDepth = Math.max(maxNestingDepth, collectNestingBundle(child, featureConstants, bundle));
+        }
+        return maxNestingDepth;
+    }
+
     /**
      * Check if the feature constant is bigger than the mean value of feature
      * lofc Indicates a large feature.
@@ -566,7 +537,7 @@ public class Detector {
             // calculate the minimal lofc a feature location should have to be
             // considered big
             int lofc = (loc.end - loc.start);
-            double minLofc = (config.Feature_MeanLofcRatio * ctx.featureExpressions.GetMeanLofc());
+            double minLofc = (config.Feature_MeanLofcRatio * ctx.GetProjectStats().GetMeanLofc());
             // add the feature location if the feature lofc is bigger than the
             // minimal
             if (lofc >= minLofc) this.addFeatureLocWithReason(loc, SmellReason.LARGEFEATURE_LOFCTOMEANLOFC);
@@ -585,7 +556,7 @@ public class Detector {
         if (!Double.isNaN(config.Feature_ProjectLocRatio)) {
             // calculate the minimal lofc the feature must have to be a large
             // feature
-            double minLofc = (ctx.featureExpressions.GetLoc() * config.Feature_ProjectLocRatio);
+            double minLofc = (ctx.GetProjectStats().GetLoc() * config.Feature_ProjectLocRatio);
             // add the feature location
             if (feat.getLofc() >= minLofc) this.addFeatureLocWithReason(loc, SmellReason.LARGEFEATURE_LOFCTOLOC);
         }
@@ -601,9 +572,9 @@ public class Detector {
         final DetectionConfig config = ctx.config;
         if (!Double.isNaN(config.Feature_NoFeatureConstantsRatio)) {
             // amount of nofls the feature has to exceed for a smell
-            double minNofl = ctx.featureExpressions.numberOfFeatureConstantReferences
+            double minNofl = ctx.GetProjectStats().GetFeatureConstantReferences()
                     * config.Feature_NoFeatureConstantsRatio;
-            if (feat.getReferences().size() > minNofl) {
+            if (feat.GetReferenceCount() > minNofl) {
                 for (FeatureReference loc : feat.getReferences())
                     this.addFeatureLocWithReason(loc, SmellReason.SHOTGUNSURGERY_NOFCOSUMNOFC);
             }
@@ -652,7 +623,7 @@ public class Detector {
         final DetectionConfig config = ctx.config;
 
         if (config.Feature_NumberNofc != -1) {
-            if (feat.references.size() > config.Feature_NumberNofc) {
+            if (feat.GetReferenceCount() > config.Feature_NumberNofc) {
                 for (FeatureReference loc : feat.getReferences())
                     this.addFeatureLocWithReason(loc, SmellReason.LARGEFEATURE_NUMBERNOFC);
             }
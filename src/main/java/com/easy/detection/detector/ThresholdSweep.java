@@ -0,0 +1,586 @@
+package com.easy.detection.detector;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.Feature;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import com.easy.detection.data.Method;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Evaluates many thresholds of the same detection metric at once.  For each metric, the metric values of all
+ * entities (functions, files, features, ...) are computed and sorted once.  The entities exceeding a threshold then
+ * form a suffix of the sorted values, so the number of smelly entities and of their feature constant references can
+ * be determined for each threshold by a binary search and a precomputed suffix sum.
+ * <p>
+ * The thresholds have the same meaning as in the detection configuration, i.e., an entity is smelly with respect to a
+ * threshold if the {@link Detector} would report its feature constant references for that threshold.  Ratios are
+ * compared as quotients here, which may differ from the detector's products in the last bit of rounding.
+ * </p>
+ * <p>
+ * The weighted smell scores, which the detector computes along with its checks, can be swept as well, to see how many
+ * entities reach a score.  They are read from the per-entity caches (e.g., {@link Method#GetABSmell(Context)}).
+ * </p>
+ */
+public class ThresholdSweep {
+    /**
+     * The metrics that can be swept.  The names are those of the thresholds in the detection configuration, except
+     * for the weighted smell scores at the end, which have no threshold and no reason.
+     */
+    public enum Metric {
+        Feature_MeanLofcRatio(SmellReason.LARGEFEATURE_LOFCTOMEANLOFC, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                final int meanLofc = ctx.GetProjectStats().GetMeanLofc();
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    for (FeatureReference ref : feat.getReferences()) {
+                        out.add(ratio(ref.end - ref.start, meanLofc), 1, ref);
+                    }
+                }
+            }
+        },
+        Feature_ProjectLocRatio(SmellReason.LARGEFEATURE_LOFCTOLOC, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                final int loc = ctx.GetProjectStats().GetLoc();
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    out.add(ratio(feat.getLofc(), loc), feat.GetReferenceCount(), feat);
+                }
+            }
+        },
+        Feature_NoFeatureConstantsRatio(SmellReason.SHOTGUNSURGERY_NOFCOSUMNOFC, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                final int total = ctx.GetProjectStats().GetFeatureConstantReferences();
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    final int nofc = feat.GetReferenceCount();
+                    out.add(ratio(nofc, total), nofc, feat);
+                }
+            }
+        },
+        Feature_NumberOfCompilUnits(SmellReason.SHOTGUNSURGERY_NUMBERCOMPILATIONUNITS, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    out.add(feat.GetAmountCompilationFiles(), feat.GetReferenceCount(), feat);
+                }
+            }
+        },
+        Feature_NumberLofc(SmellReason.LARGEFEATURE_NUMBERLOFC, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    out.add(feat.getLofc(), feat.GetReferenceCount(), feat);
+                }
+            }
+        },
+        Feature_NumberNofc(SmellReason.LARGEFEATURE_NUMBERNOFC, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    out.add(feat.GetReferenceCount(), feat.GetReferenceCount(), feat);
+                }
+            }
+        },
+        Method_LofcToLocRatio(SmellReason.ANNOTATIONBUNDLE_LOFCTOLOC, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(ratio(meth.lofc, meth.getNetLoc()), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_LoacToLocRatio(SmellReason.ANNOTATIONBUNDLE_LOACTOLOC, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(ratio(meth.GetLinesOfAnnotatedCode(), meth.getNetLoc()), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_NumberOfFeatureConstants(SmellReason.ANNOTATIONBUNDLE_NUMBERFEATURECONSTANTS, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(meth.GetFeatureConstantCount(), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_NumberOfFeatureLocations(SmellReason.ANNOTATIONBUNDLE_NUMBERFEATURELOC, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(meth.GetFeatureConstantCount(), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_NumberOfFeatureConstantsNonDup(SmellReason.ANNOTATIONBUNDLE_NUMBERFEATURECONSTNONDUP, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(meth.GetNumberOfFeatureConstantsNonDup(), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_NegationCount(SmellReason.ANNOTATIONBUNDLE_NUMBERNEGATIONS, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(meth.GetNegationCount(), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_NestingSum(SmellReason.ANNOTATIONBUNDLE_NUMBERNESTINGSUM, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    out.add(meth.GetNestingSum(), meth.featureReferences.size(), meth);
+                }
+            }
+        },
+        Method_NestingDepthMin(SmellReason.ANNOTATIONBUNDLE_NUMBERNESTINGDEPTHMIN, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    collectNestingBundles(ctx, meth.featureReferences, out);
+                }
+            }
+        },
+        File_LofcToLocRatio(SmellReason.ANNOTATIONFILE_LOFCTOLOC, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(ratio(file.lofc, file.loc), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_LoacToLocRatio(SmellReason.ANNOTATIONFILE_LOACTOLOC, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(ratio(file.GetLinesOfAnnotatedCode(), file.loc), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_NumberOfFeatureConstants(SmellReason.ANNOTATIONFILE_NUMBERFEATURECONSTANTS, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(file.GetFeatureConstantCount(), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_NumberOfFeatureLocations(SmellReason.ANNOTATIONFILE_NUMBERFEATURELOC, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(file.GetFeatureConstantCount(), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_NumberOfFeatureConstantsNonDup(SmellReason.ANNOTATIONFILE_NUMBERFEATURECONSTNONDUP, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(file.GetNumberOfFeatureConstantsNonDup(), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_NegationCount(SmellReason.ANNOTATIONFILE_NUMBERNEGATIONS, false) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(file.GetNegationCount(), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_NestingSum(SmellReason.ANNOTATIONFILE_NUMBERNESTINGSUM, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    out.add(file.GetNestingSum(), file.featureConstants.size(), file);
+                }
+            }
+        },
+        File_NestingDepthMin(SmellReason.ANNOTATIONFILE_NUMBERNESTINGDEPTHMIN, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    collectNestingBundles(ctx, file.featureConstants, out);
+                }
+            }
+        },
+        Method_ABSmell(null, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Method meth : ctx.functions.AllMethods()) {
+                    addScore(meth.GetABSmell(ctx), meth.featureReferences.size(), meth, out);
+                }
+            }
+        },
+        File_AFSmell(null, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (File file : ctx.files.AllFiles()) {
+                    addScore(file.GetAFSmell(ctx), file.featureConstants.size(), file, out);
+                }
+            }
+        },
+        Feature_LGSmell(null, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    addScore(feat.GetLGSmell(ctx), feat.GetReferenceCount(), feat, out);
+                }
+            }
+        },
+        Feature_SSSmell(null, true) {
+            @Override
+            void collect(Context ctx, ValueSink out) {
+                for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                    addScore(feat.GetSSSmell(ctx), feat.GetReferenceCount(), feat, out);
+                }
+            }
+        };
+
+        /**
+         * The reason the detector reports for this metric, or <code>null</code> for a weighted smell score
+         */
+        public final SmellReason reason;
+        /**
+         * <code>true</code> if values equal to the threshold are smelly, <code>false</code> if the value has to exceed
+         * the threshold
+         */
+        public final boolean inclusive;
+
+        Metric(SmellReason reason, boolean inclusive) {
+            this.reason = reason;
+            this.inclusive = inclusive;
+        }
+
+        /**
+         * Adds the metric value of each entity to <code>out</code>
+         */
+        abstract void collect(Context ctx, ValueSink out);
+
+        /**
+         * The detector checks <code>numerator &gt;= threshold * denominator</code>, or <code>&gt;</code> if the metric
+         * is not inclusive.  If the denominator is 0, this is <code>numerator &gt;= 0</code>, which always holds, or
+         * <code>numerator &gt; 0</code>, which holds for all thresholds or none.
+         */
+        double ratio(double numerator, double denominator) {
+            if (denominator == 0) {
+                return (inclusive || numerator > 0) ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            }
+            return numerator / denominator;
+        }
+
+        /**
+         * Adds a weighted smell score.  Scores of entities without feature constants are 0/0 and thus skipped, as
+         * NaN would not sort.
+         */
+        private static void addScore(float score, int numReferences, Object entity, ValueSink out) {
+            if (!Float.isNaN(score)) out.add(score, numReferences, entity);
+        }
+
+        private static void collectNestingBundles(Context ctx, Map<UUID, String> featureConstants, ValueSink out) {
+            List<FeatureReference> bundle = new ArrayList<>();
+            for (Map.Entry<UUID, String> e : featureConstants.entrySet()) {
+                FeatureReference root = ctx.featureExpressions.GetFeatureConstant(e.getValue(), e.getKey());
+                if ((root.parent != null) && featureConstants.containsKey(root.parent.id)) continue;
+                bundle.clear();
+                int ndm = Detector.collectNestingBundle(root, featureConstants, bundle) - root.nestingDepth;
+                out.add(ndm, bundle.size(), root);
+            }
+        }
+    }
+
+    /**
+     * Receives the metric value of each entity from {@link Metric#collect(Context, ValueSink)}
+     */
+    interface ValueSink {
+        void add(double value, int numReferences, Object entity);
+    }
+
+    /**
+     * Metric values of entities, collected in arrays and sorted by value
+     */
+    static class Values implements ValueSink {
+        private double[] values = new double[16];
+        private int[] references = new int[16];
+        private Object[] entities = new Object[16];
+        private int size = 0;
+        /**
+         * <code>referencesFrom[i]</code> is the number of feature constant references of the entities at positions
+         * <code>i</code> and above, after sorting
+         */
+        private long[] referencesFrom;
+
+        @Override
+        public void add(double value, int numReferences, Object entity) {
+            if (size == values.length) {
+                int newLength = size * 2;
+                values = Arrays.copyOf(values, newLength);
+                references = Arrays.copyOf(references, newLength);
+                entities = Arrays.copyOf(entities, newLength);
+            }
+            values[size] = value;
+            references[size] = numReferences;
+            entities[size] = entity;
+            size++;
+        }
+
+        void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            final double[] unsortedValues = values;
+            Arrays.sort(order, (a, b) -> Double.compare(unsortedValues[a], unsortedValues[b]));
+            double[] sortedValues = new double[size];
+            int[] sortedReferences = new int[size];
+            Object[] sortedEntities = new Object[size];
+            for (int i = 0; i < size; i++) {
+                sortedValues[i] = values[order[i]];
+                sortedReferences[i] = references[order[i]];
+                sortedEntities[i] = entities[order[i]];
+            }
+            values = sortedValues;
+            references = sortedReferences;
+            entities = sortedEntities;
+            referencesFrom = new long[size + 1];
+            for (int i = size - 1; i >= 0; i--) {
+                referencesFrom[i] = referencesFrom[i + 1] + references[i];
+            }
+        }
+
+        /**
+         * @return the position of the first (sorted) value that is smelly with respect to the threshold
+         */
+        int firstSmelly(double threshold, boolean inclusive) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                boolean smelly = inclusive ? values[mid] >= threshold : values[mid] > threshold;
+                if (smelly) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Outcome of one threshold of one metric
+     */
+    public static class Result {
+        public final Metric metric;
+        public final double threshold;
+        /**
+         * Number of functions, files, features, etc. that are smelly with respect to the threshold
+         */
+        public final int smellyEntities;
+        /**
+         * Number of feature constant references the detector would report for the threshold
+         */
+        public final long smellyFeatureConstantReferences;
+
+        Result(Metric metric, double threshold, int smellyEntities, long smellyFeatureConstantReferences) {
+            this.metric = metric;
+            this.threshold = threshold;
+            this.smellyEntities = smellyEntities;
+            this.smellyFeatureConstantReferences = smellyFeatureConstantReferences;
+        }
+    }
+
+    /**
+     * An entity that is smelly for at least one threshold of a metric
+     */
+    public static class Member {
+        public final Metric metric;
+        /**
+         * A {@link Method}, {@link File}, {@link Feature} or {@link FeatureReference} (for
+         * {@link Metric#Feature_MeanLofcRatio} and the root of an annotation bundle for the nesting depth metrics)
+         */
+        public final Object entity;
+        public final double value;
+        public final int featureConstantReferences;
+        /**
+         * The largest of the requested thresholds for which the entity is smelly.  The entity is smelly for all
+         * smaller thresholds as well.
+         */
+        public final double maxSmellyThreshold;
+
+        Member(Metric metric, Object entity, double value, int featureConstantReferences, double maxSmellyThreshold) {
+            this.metric = metric;
+            this.entity = entity;
+            this.value = value;
+            this.featureConstantReferences = featureConstantReferences;
+            this.maxSmellyThreshold = maxSmellyThreshold;
+        }
+    }
+
+    private final Context ctx;
+    private final Map<Metric, Values> valuesByMetric = new EnumMap<>(Metric.class);
+
+    public ThresholdSweep(Context ctx) {
+        this.ctx = ctx;
+    }
+
+    private Values sortedValues(Metric metric) {
+        Values values = valuesByMetric.get(metric);
+        if (values == null) {
+            values = new Values();
+            metric.collect(ctx, values);
+            values.sort();
+            valuesByMetric.put(metric, values);
+        }
+        return values;
+    }
+
+    /**
+     * Evaluates thresholds of a metric.
+     *
+     * @param metric     the metric
+     * @param thresholds the thresholds, in any order
+     * @return one result per threshold, in the order of the thresholds
+     */
+    public List<Result> Sweep(Metric metric, double[] thresholds) {
+        Values values = sortedValues(metric);
+        List<Result> results = new ArrayList<>(thresholds.length);
+        for (double t : thresholds) {
+            int first = values.firstSmelly(t, metric.inclusive);
+            results.add(new Result(metric, t, values.size - first, values.referencesFrom[first]));
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates thresholds of several metrics.
+     *
+     * @param thresholdsByMetric the thresholds of each metric
+     * @return the results of all metrics, in the order of the map
+     */
+    public List<Result> Sweep(Map<Metric, double[]> thresholdsByMetric) {
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<Metric, double[]> e : thresholdsByMetric.entrySet()) {
+            results.addAll(Sweep(e.getKey(), e.getValue()));
+        }
+        return results;
+    }
+
+    /**
+     * Determines the entities that are smelly for at least one of the given thresholds of a metric.
+     *
+     * @param metric     the metric
+     * @param thresholds the thresholds, in any order
+     * @return the smelly entities, in descending order of their metric values
+     */
+    public List<Member> Members(Metric metric, double[] thresholds) {
+        List<Member> result = new ArrayList<>();
+        if (thresholds.length == 0) return result;
+        double[] sortedThresholds = thresholds.clone();
+        Arrays.sort(sortedThresholds);
+        Values values = sortedValues(metric);
+        int first = values.firstSmelly(sortedThresholds[0], metric.inclusive);
+        for (int i = values.size - 1; i >= first; i--) {
+            double v = values.values[i];
+            // number of thresholds for which v is smelly
+            int n = countSmellyThresholds(sortedThresholds, v, metric.inclusive);
+            result.add(new Member(metric, values.entities[i], v, values.references[i], sortedThresholds[n - 1]));
+        }
+        return result;
+    }
+
+    private static int countSmellyThresholds(double[] sortedThresholds, double value, boolean inclusive) {
+        int lo = 0;
+        int hi = sortedThresholds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            boolean smelly = inclusive ? value >= sortedThresholds[mid] : value > sortedThresholds[mid];
+            if (smelly) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Parses a sweep specification.  Each line names a threshold of the detection configuration and the values to
+     * try, either as a comma-separated list or as a range with a step:
+     * <pre>
+     * Method_NumberOfFeatureConstants=1,2,3,5,8
+     * File_LoacToLocRatio=0.1..0.9:0.1
+     * </pre>
+     * Empty lines and lines starting with <code>#</code> are ignored.
+     *
+     * @param lines the lines of the specification
+     * @return the thresholds of each metric, in the order of the specification
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    public static Map<Metric, double[]> parseSpec(List<String> lines) {
+        Map<Metric, double[]> result = new EnumMap<>(Metric.class);
+        int lineNo = 0;
+        for (String line : lines) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int eq = line.indexOf('=');
+            if (eq == -1) {
+                throw new IllegalArgumentException("Line " + lineNo + ": expected NAME=VALUES, got `" + line + "'");
+            }
+            String name = line.substring(0, eq).trim();
+            Metric metric;
+            try {
+                metric = Metric.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": unknown threshold `" + name + "'");
+            }
+            try {
+                result.put(metric, parseThresholds(line.substring(eq + 1).trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static double[] parseThresholds(String spec) {
+        int dots = spec.indexOf("..");
+        if (dots == -1) {
+            String[] parts = spec.split(",");
+            double[] result = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                result[i] = Double.parseDouble(parts[i].trim());
+            }
+            return result;
+        }
+        int colon = spec.indexOf(':', dots);
+        // decimal arithmetic, so that 0.1..0.9:0.1 yields 0.3 rather than 0.30000000000000004
+        BigDecimal from = new BigDecimal(spec.substring(0, dots).trim());
+        BigDecimal to = new BigDecimal(spec.substring(dots + 2, colon == -1 ? spec.length() : colon).trim());
+        BigDecimal step = (colon == -1) ? BigDecimal.ONE : new BigDecimal(spec.substring(colon + 1).trim());
+        if (step.signum() <= 0 || to.compareTo(from) < 0) {
+            throw new IllegalArgumentException("invalid range `" + spec + "'");
+        }
+        List<Double> values = new ArrayList<>();
+        for (BigDecimal v = from; v.compareTo(to) <= 0; v = v.add(step)) {
+            values.add(v.doubleValue());
+        }
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
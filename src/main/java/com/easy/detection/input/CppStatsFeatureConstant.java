@@ -2,6 +2,7 @@ package com.easy.detection.input;
 
 import com.easy.detection.data.Context;
 import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -26,6 +27,16 @@ public class CppStatsFeatureConstant {
 
     public CppStatsFeatureConstant parent;
 
+    /**
+     * Nesting depth of this constant within its file, 0 for top-level constants
+     */
+    public final int nestingDepth;
+
+    /**
+     * The feature references of this constant, created on first access by {@link #getReferences()}
+     */
+    private List<FeatureReference> references = null;
+
     /**
      * Instantiates a new feature location.
      *
@@ -46,6 +57,7 @@ public class CppStatsFeatureConstant {
         this.end = end;
 
         this.parent = parent;
+        this.nestingDepth = (parent == null) ? 0 : parent.nestingDepth + 1;
 
         // get features from entry
         this.featureExpressions = new LinkedList<>();
@@ -61,21 +73,12 @@ public class CppStatsFeatureConstant {
     /**
      * Save this feature constant information to the feature expression collection
      */
-    public void SaveFeatureConstantInformation(int stackSize) {
-        // stackSize 1 means nesting depth of 0;
-        stackSize--;
-
-        List<FeatureReference> references = new ArrayList<>();
-
+    public void SaveFeatureConstantInformation() {
         // search for the corresponding feature expression and save information
-        for (String featureName : this.featureExpressions) {
-            // end1-1 = #endif does not belong to lines of code????
-            FeatureReference ref = new FeatureReference(this.filePath, this.start, this.end, stackSize,
-                    this.notFlags.get(this.featureExpressions.indexOf(featureName)));
-            ctx.featureExpressions.InternFeature(featureName).AddReference(ref);
-
-            // remember created locations for combinations
-            references.add(ref);
+        List<FeatureReference> references = getReferences();
+        File file = ctx.files.FindFile(this.filePath);
+        for (int i = 0; i < references.size(); i++) {
+            ctx.featureExpressions.InternFeature(this.featureExpressions.get(i)).AddReference(references.get(i), file);
         }
 
         // set combined feature constants
@@ -86,6 +89,35 @@ public class CppStatsFeatureConstant {
             }
     }
 
+    /**
+     * Creates the feature references of this constant (one per feature expression) and links them into the
+     * annotation tree of the file.  Nested constants are saved before their parents, so the parent's references may
+     * have to be created here ahead of their own saving.
+     *
+     * @return the references of this constant, in the order of the feature expressions
+     */
+    private List<FeatureReference> getReferences() {
+        if (this.references != null) return this.references;
+
+        this.references = new ArrayList<>(this.featureExpressions.size());
+        FeatureReference enclosing = (this.parent == null) ? null : this.parent.getReferences().get(0);
+        FeatureReference first = null;
+        for (int i = 0; i < this.featureExpressions.size(); i++) {
+            // end1-1 = #endif does not belong to lines of code????
+            FeatureReference ref = new FeatureReference(this.filePath, this.start, this.end, this.nestingDepth,
+                    this.notFlags.get(i));
+            // further references of a combined constant hang below the first one, at the same nesting depth
+            if (first == null) {
+                ref.SetParent(enclosing);
+                first = ref;
+            } else {
+                ref.SetParent(first);
+            }
+            this.references.add(ref);
+        }
+        return this.references;
+    }
+
     /**
      * Gets the features from the entry
      *
@@ -2,6 +2,7 @@ package com.easy.detection.input;
 
 import com.easy.detection.data.Context;
 import com.easy.util.FileUtils;
+import com.easy.util.SourceScanPrefetcher;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -9,12 +10,22 @@ import org.apache.commons.csv.CSVRecord;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Stack;
+import java.util.function.Function;
 
 /**
  * The Class CppStatsFolderReader for reading and processing csv files.
  */
 public class CppStatsFolderReader {
+    /**
+     * Maximum number of CSV records read ahead of the one being processed, to find source files to prefetch
+     */
+    private static final int MAX_LOOK_AHEAD = 1024;
+
     private final Context ctx;
 
     /**
@@ -41,8 +52,16 @@ public class CppStatsFolderReader {
                 + FileUtils.relPathForDisplay(pathToCppStatsFolder) + " ...");
         // this.getFeatureNames(new File(this.pathToCppStatsFolder +
         // "/merged_scattering_degrees.csv"));
-        this.getFeatureConstants(new File(this.pathToCppStatsFolder + "/cppstats_featurelocations.csv"));
-        this.internRemainingFilesAndCalculateProjectLoc(new File(this.pathToCppStatsFolder + "/cppstats.csv"));
+        // source files are read in the background, in the order the CSV files mention them
+        try (SourceScanPrefetcher prefetcher = new SourceScanPrefetcher()) {
+            ctx.files.SetPrefetcher(prefetcher);
+            this.getFeatureConstants(new File(this.pathToCppStatsFolder + "/cppstats_featurelocations.csv"),
+                    prefetcher);
+            this.internRemainingFilesAndCalculateProjectLoc(new File(this.pathToCppStatsFolder + "/cppstats.csv"),
+                    prefetcher);
+        } finally {
+            ctx.files.SetPrefetcher(null);
+        }
         System.out.println("... CppStats processing done. Found (non-header) " + ctx.files.AllFiles().size()
                 + " source files.");
     }
@@ -50,14 +69,19 @@ public class CppStatsFolderReader {
     /**
      * Get feature constants and lofc from file "cppstats_featurelocations.csv"
      *
-     * @param csvFile the csv file
+     * @param csvFile    the csv file
+     * @param prefetcher where to queue the source files mentioned in the csv file
      */
-    private void getFeatureConstants(File csvFile) {
+    private void getFeatureConstants(File csvFile, SourceScanPrefetcher prefetcher) {
         System.out.print("... getting feature position metrics  ...");
         try {
             Stack<CppStatsFeatureConstant> constants = new Stack<>();
             CSVParser parser = CSVParser.parse(csvFile, Charset.defaultCharset(), CSVFormat.DEFAULT);
-            for (CSVRecord rec : parser) {
+            for (CSVRecord rec : withLookAhead(parser, prefetcher, r -> {
+                String filePath = r.get(0);
+                if (filePath.equals("sep=,") || filePath.equals("FILENAME") || filePath.endsWith(".h.xml")) return null;
+                return ctx.files.ContainsFile(filePath) ? null : ctx.strings.canonical(filePath);
+            })) {
                 // first lines are not necessary
                 if ((rec.get(0).equals("sep=,")) || (rec.get(0).equals("FILENAME")))
                     continue;
@@ -68,6 +92,7 @@ public class CppStatsFolderReader {
                     if (filePath.endsWith(".h.xml")) {
                         continue;
                     }
+                    filePath = ctx.strings.canonical(filePath);
                     ctx.files.InternFile(filePath);
                     int start = Integer.parseInt(rec.get(1));
                     int end = Integer.parseInt(rec.get(2));
@@ -76,7 +101,7 @@ public class CppStatsFolderReader {
                     // if file changes, empty stack and save all information
                     if ((constants.size() > 0) && (!constants.peek().filePath.equals(filePath))) {
                         while (constants.size() > 0)
-                            constants.pop().SaveFeatureConstantInformation(constants.size() + 1);
+                            constants.pop().SaveFeatureConstantInformation();
                     }
                     // if stack is empty, add feature constant without parent
                     if (constants.size() == 0) {
@@ -95,7 +120,7 @@ public class CppStatsFolderReader {
                             // save feature constant if the endline of the top
                             // element is lower than the curent start1 location
                             while ((constants.size() > 0) && (constants.peek().end <= start))
-                                constants.pop().SaveFeatureConstantInformation(constants.size() + 1);
+                                constants.pop().SaveFeatureConstantInformation();
                             // item has to be put on stack, use top as reference
                             // for current feature constant, else push first
                             // element
@@ -114,7 +139,7 @@ public class CppStatsFolderReader {
             }
             // if there is still an element
             while (constants.size() > 0)
-                constants.pop().SaveFeatureConstantInformation(constants.size() + 1);
+                constants.pop().SaveFeatureConstantInformation();
         } catch (IOException e) {
             throw new RuntimeException("Failed to read feature constants from CSV file " + csvFile.getAbsolutePath(),
                     e);
@@ -126,23 +151,21 @@ public class CppStatsFolderReader {
     /**
      * Gets the lines of code for the project from file "cppstats.csv"
      *
-     * @param csvFile the csv file
+     * @param csvFile    the csv file
+     * @param prefetcher where to queue the source files mentioned in the csv file
      * @return the LOC project
      */
-    private void internRemainingFilesAndCalculateProjectLoc(File csvFile) {
+    private void internRemainingFilesAndCalculateProjectLoc(File csvFile, SourceScanPrefetcher prefetcher) {
         System.out.print("... getting lines of code ...");
         // Parse CSV and get lines of code from aggregation line
         try {
             CSVParser parser = CSVParser.parse(csvFile, Charset.defaultCharset(), CSVFormat.RFC4180);
-            for (CSVRecord rec : parser) {
+            for (CSVRecord rec : withLookAhead(parser, prefetcher, r -> {
+                final String filename = r.get(0);
+                return (isNonFileRecord(filename) || ctx.files.ContainsFile(filename)) ? null : filename;
+            })) {
                 final String filename = rec.get(0);
-                switch (filename) {
-                    case "sep=,":
-                    case "FILENAME":
-                    case "FUNCTIONS":
-                    case "ALL - MERGED":
-                        continue;
-                }
+                if (isNonFileRecord(filename)) continue;
                 ctx.files.InternFile(filename);
                 ctx.featureExpressions.AddLoc(Integer.parseInt(rec.get(1)));
             }
@@ -152,4 +175,57 @@ public class CppStatsFolderReader {
         }
         System.out.println(" done.");
     }
+
+    private static boolean isNonFileRecord(String filename) {
+        switch (filename) {
+            case "sep=,":
+            case "FILENAME":
+            case "FUNCTIONS":
+            case "ALL - MERGED":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Streams the records of a CSV file while queuing the source files of upcoming records with the prefetcher.
+     * Records are read ahead only until the prefetcher is full, and never more than {@link #MAX_LOOK_AHEAD} of them,
+     * so that neither the buffered records nor the queued files grow with the size of the project.
+     *
+     * @param records    the records
+     * @param prefetcher where to queue the source files
+     * @param fileToScan the path of the source file to queue for a record, or <code>null</code> if there is none
+     * @return the records, in their original order
+     */
+    private static Iterable<CSVRecord> withLookAhead(Iterable<CSVRecord> records, SourceScanPrefetcher prefetcher,
+                                                     Function<CSVRecord, String> fileToScan) {
+        return () -> new Iterator<CSVRecord>() {
+            private final Iterator<CSVRecord> source = records.iterator();
+            private final Deque<CSVRecord> buffer = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !buffer.isEmpty();
+            }
+
+            @Override
+            public CSVRecord next() {
+                fill();
+                if (buffer.isEmpty()) throw new NoSuchElementException();
+                return buffer.removeFirst();
+            }
+
+            private void fill() {
+                while (source.hasNext() && (buffer.isEmpty()
+                        || (buffer.size() < MAX_LOOK_AHEAD && !prefetcher.isFull()))) {
+                    CSVRecord rec = source.next();
+                    buffer.addLast(rec);
+                    String path = fileToScan.apply(rec);
+                    if (path != null) prefetcher.prefetch(path);
+                }
+            }
+        };
+    }
 }
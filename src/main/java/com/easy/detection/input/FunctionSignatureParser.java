@@ -32,6 +32,7 @@ public class FunctionSignatureParser {
     private final FilePath filePath;
     StringBuilder result;
     boolean debugParseExceptions = false;
+    private boolean parseFailed = false;
 
     public FunctionSignatureParser(Node functionNode, FilePath filePath) {
         this.functionNode = functionNode;
@@ -474,7 +475,16 @@ public class FunctionSignatureParser {
 //        return false;
 //    }
 
+    /**
+     * @return <code>true</code> iff the last call to {@link #parseFunctionSignature()} had to fall back to the
+     * quick-and-dirty parser because the signature could not be parsed properly
+     */
+    public boolean hasParseFailed() {
+        return parseFailed;
+    }
+
     public ParsedFunctionSignature parseFunctionSignature() {
+        parseFailed = false;
         // get the text content of the node (signature + method content),
         // and remove method content until beginning of block
 
@@ -495,6 +505,7 @@ public class FunctionSignatureParser {
                 }
                 return signature;
             } catch (FunctionSignatureParseException parseEx) {
+                parseFailed = true;
                 if (debugParseExceptions) {
                     LOG.debug("Could not parse function signature (going to fallback): " + prettyPrintFunctionNodeOrChild(functionNode), parseEx);
                 }
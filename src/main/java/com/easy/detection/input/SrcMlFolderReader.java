@@ -1,7 +1,11 @@
 package com.easy.detection.input;
 
 import com.easy.detection.data.*;
+import com.easy.detection.logging.Metrics;
+import com.easy.detection.logging.RunReport;
+import com.easy.util.FlatIntGroupingMap;
 import com.easy.util.GroupingListMap;
+import com.easy.util.IntObjectHashMap;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -67,16 +71,24 @@ public class SrcMlFolderReader {
         int processed = 0;
         final int numAllFiles = allFiles.size();
         final int logDiv = Math.max(1, Math.round(numAllFiles / 100f));
+        final FlatIntGroupingMap<FeatureReference> featureReferencesByFileIndex = groupFeatureReferencesByFileIndex(allFiles);
+        final Metrics.Counter filesParsed = ctx.metrics.counter(Metrics.FILES_PARSED);
+        final Metrics.Histogram fileParseMicros = ctx.metrics.histogram(Metrics.FILE_PARSE_MICROS);
 
         for (File file : allFiles) {
+            final long startNanos = System.nanoTime();
             final String filePath = file.filePath;
             final FilePath fp = ctx.internFilePath(filePath);
 
-            Document document = readSrcmlFile(filePath);
+            final Document document = ctx.runReport.measure(RunReport.Phase.SRCML_PARSE, () -> readSrcmlFile(filePath));
             DocWithFileAndCppDirectives extDoc = new DocWithFileAndCppDirectives(file, fp, document, ctx);
 
-            internAllFunctionsInFile(file, document);
-            processFeatureLocationsInFile(extDoc);
+            ctx.runReport.measure(RunReport.Phase.FUNCTION_EXTRACTION, () -> internAllFunctionsInFile(file, document));
+            final List<FeatureReference> references = featureReferencesByFileIndex.get(processed);
+            ctx.runReport.measure(RunReport.Phase.REFERENCE_ASSIGNMENT,
+                    () -> processFeatureLocationsInFile(extDoc, references));
+            filesParsed.increment();
+            fileParseMicros.record((System.nanoTime() - startNanos) / 1000, fp.pathKey);
 
             if ((++processed) % logDiv == 0) {
                 int percent = Math.round((100f * processed) / numAllFiles);
@@ -93,18 +105,26 @@ public class SrcMlFolderReader {
         private final File file;
         private final FilePath fp;
         private final Context ctx;
-        private Map<Integer, Node> cppDirectivesByLineNumberAsIs = null;
+        private final Metrics.Counter referencesAssigned;
+        private final Metrics.Counter referencesTopLevel;
+        private final Metrics.Counter referencesSkippedAlternativeDefinition;
+        private final Metrics.Counter referencesSkippedNoDirective;
+        private IntObjectHashMap<Node> cppDirectivesByLineNumberAsIs = null;
 
         public DocWithFileAndCppDirectives(File file, FilePath fp, Document doc, Context ctx) {
             this.file = file;
             this.fp = fp;
             this.doc = doc;
             this.ctx = ctx;
+            this.referencesAssigned = ctx.metrics.counter(Metrics.REFERENCES_ASSIGNED);
+            this.referencesTopLevel = ctx.metrics.counter(Metrics.REFERENCES_TOP_LEVEL);
+            this.referencesSkippedAlternativeDefinition = ctx.metrics.counter(Metrics.REFERENCES_SKIPPED_ALTERNATIVE_DEFINITION);
+            this.referencesSkippedNoDirective = ctx.metrics.counter(Metrics.REFERENCES_SKIPPED_NO_DIRECTIVE);
         }
 
-        private static Map<Integer, Node> getCppDirectivesByLineNumberAsIs(Document doc) {
-            Map<Integer, Node> result = new HashMap<>();
+        private static IntObjectHashMap<Node> getCppDirectivesByLineNumberAsIs(Document doc) {
             NodeList directives = doc.getElementsByTagName("cpp:directive");
+            IntObjectHashMap<Node> result = new IntObjectHashMap<>(directives.getLength());
             for (int i = 0; i < directives.getLength(); i++) {
                 Element current = (Element) directives.item(i);
                 int lineNumberAsIs = PositionalXmlReader.getElementLineNumberAsIs(current);
@@ -132,6 +152,7 @@ public class SrcMlFolderReader {
                 // assign this location to its corresponding method
                 assignFeatureConstantReferenceToMethod(featureRef, correspondingCppDirective);
             } else {
+                referencesSkippedNoDirective.increment();
                 LOG.warn("Failed to find the CPP directive for feature constant reference " + featureRef);
             }
         }
@@ -176,6 +197,7 @@ public class SrcMlFolderReader {
             // function/unit
             Node funcNode = findParentFunctionNode(annotationNode);
             if (funcNode == null) {
+                referencesTopLevel.increment();
                 LOG.debug("Feature reference is not part of a function definition. Treated as a top-level reference: "
                         + featureRef);
                 return;
@@ -187,12 +209,14 @@ public class SrcMlFolderReader {
             final int actualFunctionStartLoc = FunctionSignatureParser.parseFunctionStartLoc(funcNode);
 
             if (existingFunctionStartLoc != actualFunctionStartLoc) {
+                referencesSkippedAlternativeDefinition.increment();
                 LOG.info("Ignoring feature reference " + featureRef + ". It refers to an alternative definition of the same function within the same file. We cannot currently handle this case. Existing function is " + function);
                 return;
             }
 
             // add location to the function
             function.AddFeatureConstant(featureRef);
+            referencesAssigned.increment();
         }
 
         private Method findFunctionUsingNode(Node funcNode) {
@@ -202,13 +226,9 @@ public class SrcMlFolderReader {
         }
     }
 
-    private void processFeatureLocationsInFile(DocWithFileAndCppDirectives extDoc) {
+    private void processFeatureLocationsInFile(DocWithFileAndCppDirectives extDoc, List<FeatureReference> references) {
         // go through each feature location and calculate granularity
-        GroupingListMap<String, FeatureReference> featureReferencesByFilePath = groupFeatureReferencesByFilePath();
-
-        final String filePath = extDoc.fp.actualPath;
-        final List<FeatureReference> references = featureReferencesByFilePath.get(filePath);
-        if (references == null) {
+        if (references.isEmpty()) {
             LOG.debug("No feature locations in " + extDoc.fp.pathKey);
             return;
         }
@@ -220,14 +240,28 @@ public class SrcMlFolderReader {
         LOG.debug("Done processing feature locations in " + extDoc.fp.pathKey);
     }
 
-    private GroupingListMap<String, FeatureReference> groupFeatureReferencesByFilePath() {
-        GroupingListMap<String, FeatureReference> featureReferencesByFilePath = new GroupingListMap<>();
+    /**
+     * Groups the references of all features by the file they occur in.  The key of each file is its position within
+     * the given collection.
+     *
+     * @param allFiles all files of the project, in the order in which they will be processed
+     * @return the references of each file, by the index of the file
+     */
+    private FlatIntGroupingMap<FeatureReference> groupFeatureReferencesByFileIndex(Collection<File> allFiles) {
+        Map<String, Integer> fileIndexByFilePath = new HashMap<>(allFiles.size() * 2);
+        int fileIndex = 0;
+        for (File file : allFiles) {
+            fileIndexByFilePath.put(file.filePath, fileIndex++);
+        }
+
+        FlatIntGroupingMap.Builder<FeatureReference> featureReferencesByFileIndex = new FlatIntGroupingMap.Builder<>(fileIndex);
         for (Feature feat : ctx.featureExpressions.GetFeatures()) {
             for (FeatureReference ref : feat.getReferences()) {
-                featureReferencesByFilePath.put(ref.filePath, ref);
+                Integer refFileIndex = fileIndexByFilePath.get(ref.filePath);
+                if (refFileIndex != null) featureReferencesByFileIndex.put(refFileIndex, ref);
             }
         }
-        return featureReferencesByFilePath;
+        return featureReferencesByFileIndex.build();
     }
 
     public Document readSrcmlFile(String filePath) {
@@ -275,7 +309,7 @@ public class SrcMlFolderReader {
     }
 
     private Method parseFunction(Node funcNode, FilePath fp) {
-        ParsedFunctionSignature functionSignature = parseFunctionSignature(funcNode, fp);
+        ParsedFunctionSignature functionSignature = parseFunctionSignature(funcNode, fp, ctx.metrics);
         return parseFunctionUsingSignature(funcNode, fp, functionSignature);
     }
 
@@ -317,6 +351,7 @@ public class SrcMlFolderReader {
         FilePath fp = ctx.internFilePath(file.filePath);
         Method[] parsedFunctions = parseAllFunctionsInFile(doc, fp.actualPath);
         internNewlyReadFunctions(parsedFunctions, fp);
+        ctx.metrics.counter(Metrics.FUNCTIONS_EXTRACTED).add(parsedFunctions.length);
     }
 
     public Method[] parseAllFunctionsInFile(Document doc, String filePath) {
@@ -392,8 +427,23 @@ public class SrcMlFolderReader {
      * @return the function's signature
      */
     public static ParsedFunctionSignature parseFunctionSignature(Node functionNode, FilePath fp) {
+        return parseFunctionSignature(functionNode, fp, null);
+    }
+
+    /**
+     * Extracts the function signature from a SrcML XML function node and counts signatures that could only be parsed
+     * using the fallback parser.
+     *
+     * @param functionNode the SrcML XML node containing the function definition
+     * @param metrics      where to count parse failures, may be <code>null</code>
+     * @return the function's signature
+     */
+    public static ParsedFunctionSignature parseFunctionSignature(Node functionNode, FilePath fp, Metrics metrics) {
         FunctionSignatureParser parser = new FunctionSignatureParser(functionNode, fp);
         ParsedFunctionSignature result = parser.parseFunctionSignature();
+        if (metrics != null && parser.hasParseFailed()) {
+            metrics.counter(Metrics.SIGNATURE_PARSE_FAILURES).increment();
+        }
         return result;
     }
 
@@ -0,0 +1,55 @@
+package com.easy.detection.logging;
+
+import java.util.Locale;
+
+/**
+ * Helpers for hand-written JSON, such as that of {@link RunReport} and {@link Metrics}
+ */
+public class Json {
+    private Json() {
+    }
+
+    /**
+     * @param value a number, a boolean, <code>null</code> or any other object, which is written as a string
+     * @return the value in JSON notation
+     */
+    public static String value(Object value) {
+        if (value == null) return "null";
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            // JSON has no representation of NaN and infinity
+            return (Double.isNaN(d) || Double.isInfinite(d)) ? "null" : value.toString();
+        }
+        if (value instanceof Number || value instanceof Boolean) return value.toString();
+        String s = value.toString();
+        StringBuilder b = new StringBuilder(s.length() + 2);
+        b.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    b.append("\\\"");
+                    break;
+                case '\\':
+                    b.append("\\\\");
+                    break;
+                case '\n':
+                    b.append("\\n");
+                    break;
+                case '\r':
+                    b.append("\\r");
+                    break;
+                case '\t':
+                    b.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        b.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        b.append(c);
+                    }
+            }
+        }
+        return b.append('"').toString();
+    }
+}
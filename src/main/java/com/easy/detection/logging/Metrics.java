@@ -0,0 +1,245 @@
+package com.easy.detection.logging;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of counters and histograms describing the work done by a Skunk run, e.g., the number of parsed files or
+ * the time it took to process each of them.  Unlike the progress messages in the log, the values can be aggregated
+ * over many runs.  The registry may be read by another thread (see {@link MetricsReporter}) while it is being
+ * updated.
+ * <p>
+ * The metrics documented in this class are registered up front, so that every dump has the same keys, even if a
+ * count is still zero.  Other metrics are created on first use.  Callers on hot paths should look them up once and
+ * keep the returned object.
+ * </p>
+ */
+public class Metrics {
+    /**
+     * Number of srcML files that have been parsed
+     */
+    public static final String FILES_PARSED = "srcml.files.parsed";
+    /**
+     * Number of function definitions found in the srcML files
+     */
+    public static final String FUNCTIONS_EXTRACTED = "srcml.functions.extracted";
+    /**
+     * Number of feature constant references that have been assigned to a function
+     */
+    public static final String REFERENCES_ASSIGNED = "srcml.references.assigned";
+    /**
+     * Number of feature constant references outside of any function
+     */
+    public static final String REFERENCES_TOP_LEVEL = "srcml.references.top_level";
+    /**
+     * Number of feature constant references that were ignored because they refer to an alternative definition of a
+     * function within the same file
+     */
+    public static final String REFERENCES_SKIPPED_ALTERNATIVE_DEFINITION = "srcml.references.skipped.alternative_definition";
+    /**
+     * Number of feature constant references for which the preprocessor directive could not be found
+     */
+    public static final String REFERENCES_SKIPPED_NO_DIRECTIVE = "srcml.references.skipped.no_directive";
+    /**
+     * Number of function signatures that could not be parsed properly, so that the fallback parser had to be used
+     */
+    public static final String SIGNATURE_PARSE_FAILURES = "srcml.function_signature.parse_failures";
+    /**
+     * Time it took to parse a srcML file and to process its functions and feature constant references
+     */
+    public static final String FILE_PARSE_MICROS = "srcml.file.parse_micros";
+
+    /**
+     * A monotonically increasing count
+     */
+    public static class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * Distribution of non-negative values, e.g., latencies.  Values are counted in buckets whose bounds are powers of
+     * two, so percentiles are only accurate up to a factor of two.  In addition, the largest values are kept together
+     * with a label, e.g., the name of the file that took longest to process.
+     */
+    public static class Histogram {
+        private static final int NUM_BUCKETS = 64;
+        private static final int NUM_LARGEST = 10;
+
+        private final long[] buckets = new long[NUM_BUCKETS];
+        private long count = 0;
+        private long sum = 0;
+        private long min = Long.MAX_VALUE;
+        private long max = 0;
+        /**
+         * The largest labelled values seen so far, in descending order, the first {@link #numLargest} entries are
+         * valid
+         */
+        private final long[] largestValues = new long[NUM_LARGEST];
+        private final String[] largestLabels = new String[NUM_LARGEST];
+        private int numLargest = 0;
+
+        /**
+         * Records a value.
+         *
+         * @param value the value, negative values are treated as 0
+         */
+        public synchronized void record(long value) {
+            if (value < 0) value = 0;
+            buckets[bucketIndex(value)]++;
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        /**
+         * Records a value and remembers its label if the value is among the largest ones.
+         *
+         * @param value the value, negative values are treated as 0
+         * @param label description of what the value has been measured for
+         */
+        public synchronized void record(long value, String label) {
+            record(value);
+            if (numLargest == NUM_LARGEST && value <= largestValues[NUM_LARGEST - 1]) return;
+            int pos = Math.min(numLargest, NUM_LARGEST - 1);
+            while (pos > 0 && largestValues[pos - 1] < value) {
+                largestValues[pos] = largestValues[pos - 1];
+                largestLabels[pos] = largestLabels[pos - 1];
+                pos--;
+            }
+            largestValues[pos] = value;
+            largestLabels[pos] = label;
+            if (numLargest < NUM_LARGEST) numLargest++;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * Estimates a percentile of the recorded values.
+         *
+         * @param p the percentile, between 0 and 100
+         * @return the upper bound of the bucket holding the percentile, at most the maximum recorded value, or 0 if
+         * nothing has been recorded yet
+         */
+        public synchronized long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(count * p / 100.0));
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return Math.min(max, bucketUpperBound(i));
+            }
+            return max;
+        }
+
+        private static int bucketIndex(long value) {
+            return 64 - Long.numberOfLeadingZeros(value);
+        }
+
+        private static long bucketUpperBound(int index) {
+            return (index >= 63) ? Long.MAX_VALUE : (1L << index) - 1;
+        }
+
+        synchronized void appendJson(StringBuilder b) {
+            b.append("{\"count\": ").append(count);
+            b.append(", \"sum\": ").append(sum);
+            b.append(", \"min\": ").append(count == 0 ? 0 : min);
+            b.append(", \"max\": ").append(max);
+            b.append(", \"mean\": ").append(count == 0 ? 0 : sum / count);
+            b.append(", \"p50\": ").append(percentile(50));
+            b.append(", \"p90\": ").append(percentile(90));
+            b.append(", \"p99\": ").append(percentile(99));
+            b.append(", \"largest\": [");
+            for (int i = 0; i < numLargest; i++) {
+                if (i > 0) b.append(", ");
+                b.append("{\"value\": ").append(largestValues[i]);
+                b.append(", \"label\": ").append(Json.value(largestLabels[i])).append('}');
+            }
+            b.append("]}");
+        }
+    }
+
+    /**
+     * Names of the counters that are registered up front
+     */
+    static final String[] COUNTER_NAMES = {FILES_PARSED, FUNCTIONS_EXTRACTED, REFERENCES_ASSIGNED,
+            REFERENCES_TOP_LEVEL, REFERENCES_SKIPPED_ALTERNATIVE_DEFINITION, REFERENCES_SKIPPED_NO_DIRECTIVE,
+            SIGNATURE_PARSE_FAILURES};
+    /**
+     * Names of the histograms that are registered up front
+     */
+    static final String[] HISTOGRAM_NAMES = {FILE_PARSE_MICROS};
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    public Metrics() {
+        for (String name : COUNTER_NAMES) {
+            counter(name);
+        }
+        for (String name : HISTOGRAM_NAMES) {
+            histogram(name);
+        }
+    }
+
+    /**
+     * @param name name of the counter, such as {@link #FILES_PARSED}
+     * @return the counter of the given name, created if necessary
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * @param name name of the histogram, such as {@link #FILE_PARSE_MICROS}
+     * @return the histogram of the given name, created if necessary
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * @return the current values of all metrics as a JSON object, sorted by name
+     */
+    public String toJson() {
+        StringBuilder b = new StringBuilder();
+        b.append("{\n");
+        b.append("  \"time\": ").append(Json.value(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)));
+        b.append(",\n  \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            b.append(first ? "\n" : ",\n");
+            first = false;
+            b.append("    ").append(Json.value(e.getKey())).append(": ").append(e.getValue().get());
+        }
+        b.append(first ? "}" : "\n  }");
+        b.append(",\n  \"histograms\": {");
+        first = true;
+        for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+            b.append(first ? "\n" : ",\n");
+            first = false;
+            b.append("    ").append(Json.value(e.getKey())).append(": ");
+            e.getValue().appendJson(b);
+        }
+        b.append(first ? "}" : "\n  }");
+        b.append("\n}\n");
+        return b.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.easy.detection.logging;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes the {@link Metrics} of a run available while it is running, by periodically writing them to a file, by
+ * serving them on a local HTTP endpoint, or both.  The file is replaced atomically, so readers never see a partially
+ * written dump.  The HTTP server only listens on the loopback interface and answers any <code>GET</code> request with
+ * the current metrics.
+ * <p>
+ * Closing the reporter stops the HTTP server and writes the file one last time.
+ * </p>
+ */
+public class MetricsReporter implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(MetricsReporter.class);
+
+    private final Metrics metrics;
+    private final File dumpFile;
+    private ScheduledExecutorService scheduler = null;
+    private HttpServer server = null;
+
+    /**
+     * @param metrics  the metrics to report
+     * @param dumpFile file to write the metrics to, or <code>null</code> if they should not be written to a file
+     */
+    public MetricsReporter(Metrics metrics, File dumpFile) {
+        this.metrics = metrics;
+        this.dumpFile = dumpFile;
+    }
+
+    /**
+     * Starts writing the metrics to the dump file in the given interval.  Does nothing if there is no dump file.
+     *
+     * @param intervalSeconds number of seconds between two dumps
+     */
+    public synchronized void startPeriodicDumps(int intervalSeconds) {
+        if (dumpFile == null || scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "skunk-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                dump();
+            } catch (IOException e) {
+                LOG.warn("Failed to write metrics to " + dumpFile + ": " + e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts serving the metrics on <code>http://localhost:PORT/</code>.
+     *
+     * @param port the port, 0 to pick a free one
+     * @return the port the server actually listens on
+     * @throws IOException if the server cannot be started, e.g., because the port is in use
+     */
+    public synchronized int startHttpServer(int port) throws IOException {
+        if (server != null) return server.getAddress().getPort();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = metrics.toJson().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Writes the current metrics to the dump file, if there is one
+     *
+     * @throws IOException if writing fails
+     */
+    public synchronized void dump() throws IOException {
+        if (dumpFile == null) return;
+        File tmp = new File(dumpFile.getPath() + ".tmp");
+        Files.write(tmp.toPath(), metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), dumpFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        try {
+            dump();
+        } catch (IOException e) {
+            LOG.warn("Failed to write metrics to " + dumpFile + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.easy.detection.logging;
+
+import com.easy.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Records resource usage of the phases of a Skunk run and writes it as a JSON report.  For each phase, the wall time,
+ * CPU time and allocated bytes of the measuring thread are summed up over all measurements of the phase, and the peak
+ * heap usage observed during any of them is kept.  Phases may be measured repeatedly (e.g., once per file) and
+ * measurements may be nested.
+ * <p>
+ * CPU time and allocated bytes are only available on JVMs that support measuring them per thread; otherwise, they are
+ * reported as <code>null</code>.  Peak heap usage is the sum of the peak usages of all heap memory pools, which may
+ * slightly overestimate the actual peak.  The peaks are reset when a phase is measured for the first time.  Repeated
+ * measurements of a phase do not reset them, so the peak of a phase that is measured once per file covers all files,
+ * including other phases measured in between.
+ * </p>
+ */
+public class RunReport {
+    /**
+     * The phases of a Skunk run, in the order in which they usually happen
+     */
+    public enum Phase {
+        CPPSTATS_READ,
+        SRCML_PARSE,
+        FUNCTION_EXTRACTION,
+        REFERENCE_ASSIGNMENT,
+        POST_ACTION,
+        SAVE_INTERMEDIATE,
+        LOAD_INTERMEDIATE,
+        DETECTION,
+        TEXT_OUTPUT,
+        CSV_OUTPUT,
+        THRESHOLD_SWEEP;
+
+        /**
+         * @return name of the phase in the report
+         */
+        public String reportName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATED_BYTES_SUPPORTED = (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean)
+            && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported()
+            && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemoryEnabled();
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = new ArrayList<>();
+
+    static {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) HEAP_POOLS.add(pool);
+        }
+    }
+
+    private static class PhaseStats {
+        int measurements = 0;
+        long wallNanos = 0;
+        long cpuNanos = 0;
+        long allocatedBytes = 0;
+        long peakHeapBytes = 0;
+    }
+
+    private final String startTime = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    private final long startNanos = System.nanoTime();
+    private final Map<Phase, PhaseStats> statsByPhase = new EnumMap<>(Phase.class);
+    /**
+     * Phases that have been measured at least once, so that the peak heap usage is not reset for them again
+     */
+    private final Set<Phase> startedPhases = EnumSet.noneOf(Phase.class);
+    private final Map<String, Object> properties = new LinkedHashMap<>();
+    /**
+     * Measurements that have been started but not yet closed, innermost first
+     */
+    private final Deque<Measurement> openMeasurements = new ArrayDeque<>();
+
+    /**
+     * A running measurement of a phase, which is added to the report when closed
+     */
+    private class Measurement {
+        private final Phase phase;
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+        private long peakHeapBytes = 0;
+
+        private Measurement(Phase phase) {
+            this.phase = phase;
+            this.wallStart = System.nanoTime();
+            this.cpuStart = currentThreadCpuTime();
+            this.allocatedStart = currentThreadAllocatedBytes();
+        }
+
+        void close() {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = currentThreadCpuTime() - cpuStart;
+            long allocated = currentThreadAllocatedBytes() - allocatedStart;
+            peakHeapBytes = Math.max(peakHeapBytes, currentPeakHeapBytes());
+            openMeasurements.remove(this);
+
+            PhaseStats stats = statsByPhase.get(phase);
+            if (stats == null) {
+                stats = new PhaseStats();
+                statsByPhase.put(phase, stats);
+            }
+            stats.measurements++;
+            stats.wallNanos += wall;
+            stats.cpuNanos += cpu;
+            stats.allocatedBytes += allocated;
+            stats.peakHeapBytes = Math.max(stats.peakHeapBytes, peakHeapBytes);
+        }
+    }
+
+    /**
+     * Runs an action and adds its resource usage to a phase.
+     *
+     * @param phase  the phase
+     * @param action the work of the phase
+     */
+    public void measure(Phase phase, Runnable action) {
+        measure(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs an action and adds its resource usage to a phase.
+     *
+     * @param phase  the phase
+     * @param action the work of the phase
+     * @param <T>    the type of the result
+     * @return the result of the action
+     */
+    public <T> T measure(Phase phase, Supplier<T> action) {
+        Measurement m = start(phase);
+        try {
+            return action.get();
+        } finally {
+            m.close();
+        }
+    }
+
+    private Measurement start(Phase phase) {
+        if (startedPhases.add(phase)) {
+            // The peaks are reset for the new phase, so remember what the enclosing measurements have seen so far.
+            long peakSoFar = currentPeakHeapBytes();
+            for (Measurement enclosing : openMeasurements) {
+                enclosing.peakHeapBytes = Math.max(enclosing.peakHeapBytes, peakSoFar);
+            }
+            resetPeakHeapBytes();
+        }
+        Measurement m = new Measurement(phase);
+        openMeasurements.push(m);
+        return m;
+    }
+
+    /**
+     * Adds a value, such as the project name or the number of files, to the report.  Values of the same name are
+     * replaced.
+     *
+     * @param name  the name of the value
+     * @param value a number, a boolean, a string or <code>null</code>
+     */
+    public void put(String name, Object value) {
+        properties.put(name, value);
+    }
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @param file the file to write to
+     * @throws IOException if writing fails
+     */
+    public void write(File file) throws IOException {
+        FileUtils.write(file, toJson());
+    }
+
+    /**
+     * @return the report as a JSON object
+     */
+    public String toJson() {
+        StringBuilder b = new StringBuilder();
+        b.append("{\n");
+        b.append("  \"start\": ").append(Json.value(startTime)).append(",\n");
+        b.append("  \"wallMillis\": ").append(millis(System.nanoTime() - startNanos)).append(",\n");
+        for (Map.Entry<String, Object> e : properties.entrySet()) {
+            b.append("  ").append(Json.value(e.getKey())).append(": ").append(Json.value(e.getValue())).append(",\n");
+        }
+        b.append("  \"phases\": [");
+        boolean first = true;
+        for (Map.Entry<Phase, PhaseStats> e : statsByPhase.entrySet()) {
+            PhaseStats s = e.getValue();
+            b.append(first ? "\n" : ",\n");
+            first = false;
+            b.append("    {\"name\": ").append(Json.value(e.getKey().reportName()));
+            b.append(", \"measurements\": ").append(s.measurements);
+            b.append(", \"wallMillis\": ").append(millis(s.wallNanos));
+            b.append(", \"cpuMillis\": ").append(CPU_TIME_SUPPORTED ? millis(s.cpuNanos) : "null");
+            b.append(", \"allocatedBytes\": ").append(ALLOCATED_BYTES_SUPPORTED ? Long.toString(s.allocatedBytes) : "null");
+            b.append(", \"peakHeapBytes\": ").append(s.peakHeapBytes);
+            b.append('}');
+        }
+        b.append(first ? "]\n" : "\n  ]\n");
+        b.append("}\n");
+        return b.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static long currentThreadCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (!ALLOCATED_BYTES_SUPPORTED) return 0;
+        return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long currentPeakHeapBytes() {
+        long sum = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            sum += pool.getPeakUsage().getUsed();
+        }
+        return sum;
+    }
+
+    private static void resetPeakHeapBytes() {
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            pool.resetPeakUsage();
+        }
+    }
+}
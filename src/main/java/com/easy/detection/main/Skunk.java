@@ -2,12 +2,18 @@ package com.easy.detection.main;
 
 import com.easy.detection.data.Context;
 import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.ProjectStats;
 import com.easy.detection.detector.DetectionConfig;
+import com.easy.detection.detector.DetectionConfigException;
 import com.easy.detection.detector.Detector;
+import com.easy.detection.detector.ThresholdSweep;
 import com.easy.detection.detector.SmellReason;
 import com.easy.detection.input.CppStatsFolderReader;
 import com.easy.detection.input.SrcMlFolderReader;
+import com.easy.detection.logging.MetricsReporter;
+import com.easy.detection.logging.RunReport;
 import com.easy.detection.output.AnalyzedDataHandler;
+import com.easy.detection.output.SweepResultsHandler;
 import com.easy.util.FileUtils;
 import org.apache.commons.cli.*;
 import org.apache.commons.io.FilenameUtils;
@@ -37,6 +43,12 @@ public class Skunk {
     private static final char OPT_SOURCE = 's';
     private static final char OPT_PROCESSED = 'p';
     private static final char OPT_CONFIG = 'c';
+    private static final String OPT_SWEEP = "sweep";
+    private static final String OPT_TOP = "top";
+    private static final String OPT_OFF_HEAP = "off-heap";
+    private static final String OPT_METRICS_FILE = "metrics-file";
+    private static final String OPT_METRICS_PORT = "metrics-port";
+    private static final String OPT_METRICS_INTERVAL = "metrics-interval";
     /**
      * The code smell configuration.
      */
@@ -57,6 +69,30 @@ public class Skunk {
      * A flag that defines if intermediate formats will be saved.
      */
     private boolean saveIntermediate = false;
+    /**
+     * Maximum number of rows in each of the metrics CSV files, 0 for all
+     */
+    private int csvLimit = 0;
+    /**
+     * Thresholds to evaluate in a threshold sweep, empty if no sweep has been requested
+     */
+    private Optional<Map<ThresholdSweep.Metric, double[]>> sweepThresholds = Optional.empty();
+    /**
+     * File to which metrics are written periodically during the run
+     */
+    private Optional<String> metricsFile = Optional.empty();
+    /**
+     * Local port on which metrics are served during the run
+     */
+    private Optional<Integer> metricsPort = Optional.empty();
+    /**
+     * Number of seconds between two writes of {@link #metricsFile}
+     */
+    private int metricsIntervalSeconds = 10;
+    /**
+     * A flag that defines if bulky entity data is kept outside of the Java heap
+     */
+    private boolean offHeap = false;
 
     /**
      * The main method.
@@ -96,40 +132,68 @@ public class Skunk {
         }
 
         ctx = new Context(conf);
+        if (offHeap) ctx.EnableOffHeapStorage();
+        MetricsReporter metricsReporter = startMetricsReporter();
+        try {
+            analyze();
+        } finally {
+            if (metricsReporter != null) metricsReporter.close();
+        }
+        System.out.println("Exiting Skunk.");
+    }
+
+    /**
+     * Reads the input, runs the detection (if configured) and writes the results
+     */
+    private void analyze() {
+        final RunReport report = ctx.runReport;
 
         if (sourcePath.isPresent()) {
+            report.put("source", sourcePath.get());
             // process necessary csv files in project folder
-            CppStatsFolderReader cppReader = new CppStatsFolderReader(ctx, sourcePath.get());
-            cppReader.ProcessFiles();
-            // process srcML files
+            report.measure(RunReport.Phase.CPPSTATS_READ, () -> {
+                CppStatsFolderReader cppReader = new CppStatsFolderReader(ctx, sourcePath.get());
+                cppReader.ProcessFiles();
+            });
+            // process srcML files (measures its phases itself)
             SrcMlFolderReader mlReader = new SrcMlFolderReader(ctx);
             mlReader.ProcessFiles();
             // do post actions
-            ctx.functions.PostAction();
-            ctx.files.PostAction();
+            report.measure(RunReport.Phase.POST_ACTION, () -> ctx.functions.PostAction());
             // save processed data
-            if (saveIntermediate) ctx.processedDataHandler.SaveProcessedData();
+            if (saveIntermediate) {
+                report.measure(RunReport.Phase.SAVE_INTERMEDIATE, () -> ctx.processedDataHandler.SaveProcessedData());
+            }
         } else if (processedDataDir.isPresent()) {
-            ctx.processedDataHandler.LoadProcessedData(processedDataDir.get());
+            report.put("processed", processedDataDir.get());
+            report.measure(RunReport.Phase.LOAD_INTERMEDIATE,
+                    () -> ctx.processedDataHandler.LoadProcessedData(processedDataDir.get()));
         } else {
             throw new IllegalStateException("Exactly one of --sourcePath or --processedData must be specified!");
         }
 
         // display loc, loac, #feat, NOFL and NOFC
+        final ProjectStats stats = ctx.UpdateProjectStats();
         System.out.println();
-        System.out.println("LOC: " + ctx.featureExpressions.GetLoc());
-        System.out.println("Number of features: " + ctx.featureExpressions.GetCount());
-        System.out.println("Number of feature constant references: "
-                + ctx.featureExpressions.numberOfFeatureConstantReferences);
-        int loac = 0;
-        int nofl = 0;
-        for (com.easy.detection.data.File f : ctx.files.AllFiles()) {
-            loac += f.GetLinesOfAnnotatedCode();
-            nofl += f.numberOfFeatureLocations;
-        }
-        System.out.printf("LOAC: %d (%.0f%% of all lines of code)\n", loac,
-                (loac * 100.0) / ctx.featureExpressions.GetLoc());
-        System.out.println("NOFL: " + nofl);
+        System.out.println("LOC: " + stats.GetLoc());
+        System.out.println("Number of features: " + stats.GetFeatureCount());
+        System.out.println("Number of feature constant references: " + stats.GetFeatureConstantReferences());
+        System.out.printf("LOAC: %d (%.0f%% of all lines of code)\n", stats.GetLoac(),
+                (stats.GetLoac() * 100.0) / stats.GetLoc());
+        System.out.println("NOFL: " + stats.GetNofl());
+        System.out.printf("LOFC per feature: median %.1f, 90th percentile %.1f\n", stats.GetLofc().GetMedian(),
+                stats.GetLofc().GetPercentile(90.0));
+        report.put("files", stats.GetFileCount());
+        report.put("functions", stats.GetFunctionCount());
+        report.put("features", stats.GetFeatureCount());
+        report.put("featureConstantReferences", stats.GetFeatureConstantReferences());
+        report.put("loc", stats.GetLoc());
+        report.put("loac", stats.GetLoac());
+        report.put("nofl", stats.GetNofl());
+        report.put("medianLofc", stats.GetLofc().GetMedian());
+        if (offHeap) report.put("offHeapBytes", ctx.GetOffHeapBytes());
+        // the report goes next to the detection results, if there are any
+        File reportDir = new File(".");
         // run detection with current configuration (if present)
         if (conf != null) {
 
@@ -142,13 +206,50 @@ public class Skunk {
             System.out.println(resultsPath.toFile().toString());
             //String resultsPath = projectName + "_" + File.pathSeparator + currentDate + File.pathSeparator + "_" + FilenameUtils.getBaseName(conf.type);
 
+            report.put("config", conf.configFilePath());
             Detector detector = new Detector(ctx);
-            Map<FeatureReference, List<SmellReason>> res = detector.Perform();
+            Map<FeatureReference, List<SmellReason>> res = report.measure(RunReport.Phase.DETECTION, detector::Perform);
+            report.put("smellyFeatureConstantReferences", res.size());
             AnalyzedDataHandler presenter = new AnalyzedDataHandler(ctx);
-            presenter.SaveTextResults(res, resultsPath.toString());
-            presenter.SaveCsvResults(resultsPath.toString());
+            final String resultsDir = resultsPath.toString();
+            report.measure(RunReport.Phase.TEXT_OUTPUT, () -> presenter.SaveTextResults(res, resultsDir));
+            report.measure(RunReport.Phase.CSV_OUTPUT, () -> presenter.SaveCsvResults(resultsDir, csvLimit));
+            reportDir = resultsPath.toFile();
         }
-        System.out.println("Exiting Skunk.");
+        // evaluate the thresholds of the sweep (if requested)
+        if (sweepThresholds.isPresent()) {
+            final String sweepDir = reportDir.getPath();
+            report.measure(RunReport.Phase.THRESHOLD_SWEEP,
+                    () -> new SweepResultsHandler(ctx).SaveCsvResults(sweepThresholds.get(), sweepDir));
+        }
+        File reportFile = new File(reportDir, ctx.getGeneralOutputFilenamePrefix() + "run_report.json");
+        try {
+            report.write(reportFile);
+            System.out.println("Run report saved as `" + FileUtils.relPathForDisplay(reportFile.getPath()) + "'");
+        } catch (IOException e) {
+            throw new RuntimeException("I/O error while saving the run report.", e);
+        }
+    }
+
+    /**
+     * Starts reporting metrics as requested on the command line
+     *
+     * @return the running reporter, or <code>null</code> if metrics reporting was not requested
+     */
+    private MetricsReporter startMetricsReporter() {
+        if (!metricsFile.isPresent() && !metricsPort.isPresent()) return null;
+        MetricsReporter reporter = new MetricsReporter(ctx.metrics, metricsFile.map(File::new).orElse(null));
+        reporter.startPeriodicDumps(metricsIntervalSeconds);
+        if (metricsPort.isPresent()) {
+            try {
+                int port = reporter.startHttpServer(metricsPort.get());
+                System.out.println("Serving metrics on http://localhost:" + port + "/");
+            } catch (IOException e) {
+                reporter.close();
+                throw new RuntimeException("Cannot start metrics server on port " + metricsPort.get(), e);
+            }
+        }
+        return reporter;
     }
 
     /**
@@ -186,9 +287,10 @@ public class Skunk {
             if (fConfig.exists() && !fConfig.isDirectory()) {
                 try {
                     conf = new DetectionConfig(configPath);
-                } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException
-                        | IOException e) {
+                } catch (IOException e) {
                     throw new RuntimeException("Error opening smell configuration file " + configPath, e);
+                } catch (DetectionConfigException e) {
+                    throw new UsageError(e.getMessage());
                 }
             } else {
                 throw new UsageError("The configuration file, " + configPath + ", does not exist or is a directory.");
@@ -222,6 +324,54 @@ public class Skunk {
                         + "). Intermediates will NOT be saved.");
             }
         }
+        // --top=... limit the CSV output to the smelliest entities
+        if (line.hasOption(OPT_TOP)) {
+            csvLimit = parseIntOption(line, OPT_TOP, 1, Integer.MAX_VALUE);
+        }
+        // --sweep=... get the thresholds to evaluate
+        if (line.hasOption(OPT_SWEEP)) {
+            String sweepPath = line.getOptionValue(OPT_SWEEP);
+            try {
+                sweepThresholds = Optional.of(ThresholdSweep.parseSpec(FileUtils.readLines(new File(sweepPath))));
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading threshold sweep file " + sweepPath, e);
+            } catch (IllegalArgumentException e) {
+                throw new UsageError("Invalid threshold sweep file " + sweepPath + ": " + e.getMessage());
+            }
+        }
+        // --off-heap
+        if (line.hasOption(OPT_OFF_HEAP)) {
+            offHeap = true;
+        }
+        // --metrics-file=, --metrics-port= and --metrics-interval=
+        if (line.hasOption(OPT_METRICS_FILE)) {
+            metricsFile = Optional.of(line.getOptionValue(OPT_METRICS_FILE));
+        }
+        if (line.hasOption(OPT_METRICS_PORT)) {
+            metricsPort = Optional.of(parseIntOption(line, OPT_METRICS_PORT, 0, 65535));
+        }
+        if (line.hasOption(OPT_METRICS_INTERVAL)) {
+            metricsIntervalSeconds = parseIntOption(line, OPT_METRICS_INTERVAL, 1, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * @return the value of the option with the given long name, an integer between <code>min</code> and
+     * <code>max</code>
+     * @throws UsageError if the value is not such an integer
+     */
+    static int parseIntOption(CommandLine line, String name, int min, int max) {
+        String value = line.getOptionValue(name);
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new UsageError("The value of --" + name + ", " + value + ", is not a number.");
+        }
+        if (result < min || result > max) {
+            throw new UsageError("The value of --" + name + " must be between " + min + " and " + max + ", got " + result + ".");
+        }
+        return result;
     }
 
     private Options makeOptions(boolean forHelp) {
@@ -266,6 +416,49 @@ public class Skunk {
 
         options.addOptionGroup(inputOptions);
 
+        // --top= option
+        options.addOption(Option.builder()
+                .longOpt(OPT_TOP)
+                .desc("only write the N smelliest functions, files and features to the metrics CSV files [default: all]")
+                .hasArg()
+                .argName("N")
+                .build());
+        // --sweep= option
+        options.addOption(Option.builder()
+                .longOpt(OPT_SWEEP)
+                .desc("evaluate many thresholds of the code smell metrics at once; each line of FILE is of the form"
+                        + " NAME=V1,V2,... or NAME=FROM..TO:STEP, e.g. Method_NestingSum=1..20")
+                .hasArg()
+                .argName("FILE")
+                .type(PatternOptionBuilder.EXISTING_FILE_VALUE)
+                .build());
+        // --off-heap flag
+        options.addOption(Option.builder()
+                .longOpt(OPT_OFF_HEAP)
+                .desc("keep the lines of annotated code of functions and files outside of the Java heap; reduces heap"
+                        + " usage and garbage collection for very large projects")
+                .build());
+
+        // --metrics-file=, --metrics-port= and --metrics-interval= options
+        options.addOption(Option.builder()
+                .longOpt(OPT_METRICS_FILE)
+                .desc("periodically write counters and histograms of the run to this file, in JSON format")
+                .hasArg()
+                .argName("FILE")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt(OPT_METRICS_PORT)
+                .desc("serve counters and histograms of the run on http://localhost:PORT/ while it is running")
+                .hasArg()
+                .argName("PORT")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt(OPT_METRICS_INTERVAL)
+                .desc("number of seconds between two writes of the metrics file [default: 10]")
+                .hasArg()
+                .argName("SECONDS")
+                .build());
+
         //@formatter:on
         return options;
     }
@@ -274,14 +467,3 @@ public class Skunk {
         return this.getClass().getSimpleName();
     }
 }
-
-class UsageError extends RuntimeException {
-    /**
-     *
-     */
-    private static final long serialVersionUID = 1L;
-
-    public UsageError(String message) {
-        super("Usage error: " + message);
-    }
-}
@@ -0,0 +1,369 @@
+package com.easy.detection.main;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.ProjectStats;
+import com.easy.detection.detector.DetectionConfig;
+import com.easy.detection.detector.DetectionConfigException;
+import com.easy.detection.detector.Detector;
+import com.easy.detection.detector.SmellReason;
+import com.easy.detection.logging.Json;
+import com.easy.detection.output.AnalyzedDataHandler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.cli.*;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-running alternative to {@link Skunk}: loads one or more projects that have been processed with
+ * <code>--save-intermediate</code> once and then runs the detection with configurations submitted over a local HTTP
+ * API.  This saves JVM startup and loading the processed data for each configuration, e.g., when tuning thresholds.
+ * <p>
+ * The server only listens on the loopback interface.  It understands the following requests:
+ * </p>
+ * <dl>
+ * <dt><code>GET /projects</code></dt>
+ * <dd>lists the loaded projects with their sizes</dd>
+ * <dt><code>POST /projects/NAME/detect[?output=DIR[&amp;top=N]]</code></dt>
+ * <dd>runs the detection on project <code>NAME</code>, using the request body as the code smell configuration (same
+ * format as a <code>.csm</code> file).  The smelly feature constant references are returned as JSON.  If
+ * <code>output</code> is given, the usual result files are also written to that directory, where the metrics CSV
+ * files are limited to the <code>top</code> smelliest entities, if given.</dd>
+ * </dl>
+ * <p>
+ * Requests are handled one after another, since the detection updates the (shared) project data.
+ * </p>
+ */
+public class SkunkServer {
+    private static final Logger LOG = Logger.getLogger(SkunkServer.class);
+    private static final char OPT_HELP = 'h';
+    private static final char OPT_PORT = 'P';
+    private static final String OPT_PORT_LONG = "port";
+    private static final int DEFAULT_PORT = 8321;
+    private static final String PROJECTS_PATH = "/projects";
+    private static final String DETECT_SUFFIX = "/detect";
+
+    /**
+     * The loaded projects, by name
+     */
+    private final Map<String, LoadedProject> projects = new LinkedHashMap<>();
+
+    private static class LoadedProject {
+        final String name;
+        final String processedDataDir;
+        final Context ctx;
+
+        LoadedProject(String name, String processedDataDir, Context ctx) {
+            this.name = name;
+            this.processedDataDir = processedDataDir;
+            this.ctx = ctx;
+        }
+    }
+
+    /**
+     * An error to be reported to the client with the given HTTP status code
+     */
+    private static class RequestError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        RequestError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        new SkunkServer().run(args);
+    }
+
+    private void run(String[] args) {
+        Options options = makeOptions();
+        int port = DEFAULT_PORT;
+        String[] dirs;
+        try {
+            CommandLine line = new DefaultParser().parse(options, args);
+            if (line.hasOption(OPT_HELP)) {
+                new HelpFormatter().printHelp(progName() + " [OPTIONS] DIR...", options);
+                System.exit(0);
+                return;
+            }
+            if (line.hasOption(OPT_PORT)) port = Skunk.parseIntOption(line, OPT_PORT_LONG, 0, 65535);
+            dirs = line.getArgs();
+            if (dirs.length == 0) {
+                throw new ParseException("Need at least one folder with processed data.");
+            }
+        } catch (ParseException e) {
+            System.err.println("Error in command line: " + e.getMessage());
+            new HelpFormatter().printUsage(new PrintWriter(System.err, true), 80, progName(), options);
+            System.exit(1);
+            return;
+        } catch (UsageError e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printUsage(new PrintWriter(System.err, true), 80, progName(), options);
+            System.exit(1);
+            return;
+        }
+
+        try {
+            for (String dir : dirs) {
+                loadProject(dir);
+            }
+        } catch (UsageError e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        start(port);
+    }
+
+    /**
+     * Starts serving the loaded projects.
+     *
+     * @param port the local port to listen on, or <code>0</code> for any free port
+     * @return the running server
+     */
+    HttpServer start(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext(PROJECTS_PATH, this::handle);
+            server.start();
+            System.out.println("Serving " + projects.size() + " project(s) on http://localhost:"
+                    + server.getAddress().getPort() + PROJECTS_PATH);
+            return server;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot start server on port " + port, e);
+        }
+    }
+
+    void loadProject(String dir) {
+        File fDir = new File(dir);
+        if (!fDir.isDirectory()) {
+            throw new UsageError("The processed data folder, " + dir + ", does not exist or is not a directory.");
+        }
+        String name;
+        try {
+            name = fDir.getCanonicalFile().getName();
+        } catch (IOException e) {
+            name = fDir.getName();
+        }
+        if (projects.containsKey(name)) {
+            throw new UsageError("Two processed data folders have the same name, " + name + ".");
+        }
+        Context ctx = new Context(null);
+        ctx.processedDataHandler.LoadProcessedData(dir);
+        ctx.UpdateProjectStats();
+        projects.put(name, new LoadedProject(name, dir, ctx));
+        System.out.println("Loaded project `" + name + "' from `" + dir + "'.");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = dispatch(exchange);
+        } catch (RequestError e) {
+            status = e.status;
+            body = errorJson(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = errorJson(e.toString());
+            LOG.error("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals(PROJECTS_PATH) || path.equals(PROJECTS_PATH + "/")) {
+            requireMethod(method, "GET");
+            return projectsJson();
+        }
+        if (path.startsWith(PROJECTS_PATH + "/") && path.endsWith(DETECT_SUFFIX)) {
+            requireMethod(method, "POST");
+            String name = path.substring(PROJECTS_PATH.length() + 1, path.length() - DETECT_SUFFIX.length());
+            LoadedProject project = projects.get(name);
+            if (project == null) throw new RequestError(404, "No such project: " + name);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            return detect(project, readLines(exchange), query.get("output"), parseLimit(query.get("top")));
+        }
+        throw new RequestError(404, "No such resource: " + path);
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!expected.equals(actual)) {
+            throw new RequestError(405, "Method " + actual + " not allowed, use " + expected + ".");
+        }
+    }
+
+    private static int parseLimit(String value) {
+        if (value == null) return 0;
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit > 0) return limit;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new RequestError(400, "The value of top must be a positive number, got " + value);
+    }
+
+    private String detect(LoadedProject project, List<String> configLines, String outputDir, int csvLimit) {
+        final DetectionConfig config;
+        try {
+            config = new DetectionConfig(project.name + "/request.csm", configLines);
+        } catch (DetectionConfigException e) {
+            throw new RequestError(400, e.getMessage());
+        }
+        final Context ctx = project.ctx.withConfig(config);
+        final long start = System.nanoTime();
+        Map<FeatureReference, List<SmellReason>> res = new Detector(ctx).Perform();
+        final long millis = (System.nanoTime() - start) / 1000000;
+
+        if (outputDir != null) {
+            File fOutputDir = new File(outputDir);
+            if (!fOutputDir.isDirectory() && !fOutputDir.mkdirs()) {
+                throw new RequestError(400, "Cannot create output directory " + outputDir);
+            }
+            AnalyzedDataHandler presenter = new AnalyzedDataHandler(ctx);
+            presenter.SaveTextResults(res, outputDir);
+            presenter.SaveCsvResults(outputDir, csvLimit);
+        }
+
+        List<FeatureReference> refs = new ArrayList<>(res.keySet());
+        Collections.sort(refs, AnalyzedDataHandler.FEATURECONSTANT_FILEPATH_COMPARATOR);
+        StringBuilder b = new StringBuilder();
+        b.append("{\"project\": ").append(Json.value(project.name));
+        b.append(", \"detectionMillis\": ").append(millis);
+        b.append(", \"output\": ").append(Json.value(outputDir));
+        b.append(", \"smellyFeatureConstantReferences\": ").append(refs.size());
+        b.append(", \"results\": [");
+        for (int i = 0; i < refs.size(); i++) {
+            FeatureReference ref = refs.get(i);
+            b.append(i == 0 ? "\n" : ",\n");
+            b.append("  {\"feature\": ").append(Json.value(ref.feature.Name));
+            b.append(", \"file\": ").append(Json.value(ref.FilePathForDisplay()));
+            b.append(", \"start\": ").append(ref.start);
+            b.append(", \"end\": ").append(ref.end);
+            b.append(", \"function\": ").append(Json.value(ref.inMethod == null ? null : ref.inMethod.functionName));
+            b.append(", \"reasons\": [");
+            List<SmellReason> reasons = res.get(ref);
+            for (int j = 0; j < reasons.size(); j++) {
+                if (j > 0) b.append(", ");
+                b.append(Json.value(reasons.get(j).name()));
+            }
+            b.append("]}");
+        }
+        b.append(refs.isEmpty() ? "]}\n" : "\n]}\n");
+        return b.toString();
+    }
+
+    private String projectsJson() {
+        StringBuilder b = new StringBuilder("[");
+        boolean first = true;
+        for (LoadedProject p : projects.values()) {
+            b.append(first ? "\n" : ",\n");
+            first = false;
+            Context ctx = p.ctx;
+            b.append("  {\"name\": ").append(Json.value(p.name));
+            b.append(", \"processed\": ").append(Json.value(p.processedDataDir));
+            ProjectStats stats = p.ctx.GetProjectStats();
+            b.append(", \"files\": ").append(stats.GetFileCount());
+            b.append(", \"functions\": ").append(stats.GetFunctionCount());
+            b.append(", \"features\": ").append(stats.GetFeatureCount());
+            b.append(", \"featureConstantReferences\": ").append(stats.GetFeatureConstantReferences());
+            b.append(", \"loc\": ").append(stats.GetLoc());
+            b.append('}');
+        }
+        b.append(first ? "]\n" : "\n]\n");
+        return b.toString();
+    }
+
+    private static String errorJson(String message) {
+        return "{\"error\": " + Json.value(message) + "}\n";
+    }
+
+    private static List<String> readLines(HttpExchange exchange) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> result = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return result;
+        try {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq == -1) {
+                    result.put(URLDecoder.decode(pair, "UTF-8"), "");
+                } else {
+                    result.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                            URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("UTF-8 not supported", e);
+        } catch (IllegalArgumentException e) {
+            throw new RequestError(400, "Malformed query: " + rawQuery);
+        }
+        return result;
+    }
+
+    private Options makeOptions() {
+        Options options = new Options();
+        //@formatter:off
+        options.addOption(Option.builder(String.valueOf(OPT_HELP))
+                .longOpt("help")
+                .desc("print this help screen and exit")
+                .build());
+        options.addOption(Option.builder(String.valueOf(OPT_PORT))
+                .longOpt(OPT_PORT_LONG)
+                .desc("local port to listen on [default: " + DEFAULT_PORT + "]")
+                .hasArg()
+                .argName("PORT")
+                .build());
+        //@formatter:on
+        return options;
+    }
+
+    private String progName() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,12 @@
+package com.easy.detection.main;
+
+class UsageError extends RuntimeException {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    public UsageError(String message) {
+        super("Usage error: " + message);
+    }
+}
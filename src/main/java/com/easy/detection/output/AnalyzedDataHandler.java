@@ -4,10 +4,11 @@ import com.easy.detection.data.*;
 import com.easy.detection.detector.DetectionConfig;
 import com.easy.detection.detector.SmellReason;
 import com.easy.util.FileUtils;
+import com.easy.util.TopK;
 import com.easy.detection.data.File;
-import org.apache.commons.csv.CSVPrinter;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 
 public class AnalyzedDataHandler {
@@ -104,23 +105,23 @@ public class AnalyzedDataHandler {
 
     /**** TXT Start End Saving *****/
     public void SaveTextResults(Map<FeatureReference, List<SmellReason>> results, String resultsPath) {
-        // get the results of the complete detection process and the whole
-        // project
-        String overview = this.getOverviewResults(results);
-        // get overview per attribute
-        String attributes = this.getAttributeOverviewResults(results);
-        // Sortiert nach location und file
-        String files = this.getFileSortedResults(results);
-        String methods = this.getMethodSortedResults(results);
-        // get the results sorted per feature
-        String features = this.getFeatureSortedResults(results);
         SimpleFileWriter writer = new SimpleFileWriter();
         try {
-            writer.write(new java.io.File(resultsPath + "/_detection_overview.txt"), overview);
-            writer.write(new java.io.File(resultsPath + "/_detection_attributes.txt"), attributes);
-            writer.write(new java.io.File(resultsPath + "/_detection_files.txt"), files);
-            writer.write(new java.io.File(resultsPath + "/_detection_methods.txt"), methods);
-            writer.write(new java.io.File(resultsPath + "/_detection_features.txt"), features);
+            // get the results of the complete detection process and the whole
+            // project
+            writer.write(new java.io.File(resultsPath + "/_detection_overview.txt"),
+                    out -> this.writeOverviewResults(results, out));
+            // get overview per attribute
+            writer.write(new java.io.File(resultsPath + "/_detection_attributes.txt"),
+                    out -> this.writeAttributeOverviewResults(results, out));
+            // Sortiert nach location und file
+            writer.write(new java.io.File(resultsPath + "/_detection_files.txt"),
+                    out -> this.writeFileSortedResults(results, out));
+            writer.write(new java.io.File(resultsPath + "/_detection_methods.txt"),
+                    out -> this.writeMethodSortedResults(results, out));
+            // get the results sorted per feature
+            writer.write(new java.io.File(resultsPath + "/_detection_features.txt"),
+                    out -> this.writeFeatureSortedResults(results, out));
             System.out.println("Detection result files (" + writer.prettyFileNameList() + ") saved in `"
                     + writer.getDirForDisplay() + "'");
         } catch (IOException e) {
@@ -129,105 +130,110 @@ public class AnalyzedDataHandler {
     }
 
     /**
-     * Creates the overview metrics for each attribute, and saves it to the output result
+     * Creates the overview metrics for each attribute, and writes it to the output result
      *
      * @param results the results
-     * @return the attribute overview results
+     * @param out     where to write the attribute overview results
      */
-    private String getAttributeOverviewResults(Map<FeatureReference, List<SmellReason>> results) {
-        String res = ctx.config.toString() + "\r\n\r\n\r\n\r\n\r\n";
-        List<AttributeOverview> attributes = new ArrayList<>();
-        for (FeatureReference key : results.keySet()) {
-            for (SmellReason reason : results.get(key)) {
+    private void writeAttributeOverviewResults(Map<FeatureReference, List<SmellReason>> results, Writer out)
+            throws IOException {
+        out.write(ctx.config.toString());
+        out.write("\r\n\r\n\r\n\r\n\r\n");
+        // one overview per attribute, in order of first appearance
+        Map<SmellReason, AttributeOverview> attributes = new LinkedHashMap<>();
+        for (Map.Entry<FeatureReference, List<SmellReason>> e : results.entrySet()) {
+            for (SmellReason reason : e.getValue()) {
                 // get fitting attribute or create one
-                boolean add = true;
-                for (AttributeOverview overview : attributes) {
-                    if (overview.Reason.equals(reason)) add = false;
+                AttributeOverview overview = attributes.get(reason);
+                if (overview == null) {
+                    overview = new AttributeOverview(ctx, reason);
+                    attributes.put(reason, overview);
                 }
-                if (add) attributes.add(new AttributeOverview(ctx, reason));
                 // add location information
-                for (AttributeOverview overview : attributes)
-                    if (overview.Reason.equals(reason)) overview.AddFeatureLocationInfo(key);
+                overview.AddFeatureLocationInfo(e.getKey());
             }
         }
         // add attribute overview to output
-        for (AttributeOverview attr : attributes)
-            res += attr.toString();
-        return res;
+        for (AttributeOverview attr : attributes.values())
+            attr.appendTo(out);
     }
 
     /**
-     * Sorts the result per file and start1 and adds it to the resulting file
+     * Sorts the result per file and start1 and writes it to the resulting file
      *
      * @param results the results
-     * @return the location results
+     * @param out     where to write the location results
      */
-    private String getFileSortedResults(Map<FeatureReference, List<SmellReason>> results) {
-        String res = ctx.config.toString() + "\r\n\r\n\r\n\r\n\r\n\r\n";
+    private void writeFileSortedResults(Map<FeatureReference, List<SmellReason>> results, Writer out)
+            throws IOException {
+        out.write(ctx.config.toString());
+        out.write("\r\n\r\n\r\n\r\n\r\n\r\n");
         // sort the keys after featurename, filepath and start1
         List<FeatureReference> sortedKeys = new ArrayList<>(results.keySet());
         Collections.sort(sortedKeys, new ComparatorChain<>(FEATURECONSTANT_FILEPATH_COMPARATOR,
                 FEATURECONSTANT_START_COMPARATOR));
-        res += ">>> File-Sorted Results:\r\n";
+        out.write(">>> File-Sorted Results:\r\n");
         String currentPath = "";
         // print the the locations and reasons sorted after feature
         for (FeatureReference key : sortedKeys) {
             if (!key.filePath.equals(currentPath)) {
                 currentPath = key.filePath;
-                res += "\r\n\r\n\r\n[File: " + currentPath + "]\r\n";
-                res += "Start\t\tEnd\t\tFeature\t\tReason\r\n";
+                out.write("\r\n\r\n\r\n[File: " + currentPath + "]\r\n");
+                out.write("Start\t\tEnd\t\tFeature\t\tReason\r\n");
             }
-            res += key.start + "\t\t" + key.end + "\t\t" + key.feature.Name + "\t\t" + results.get(key).toString()
-                    + "\r\n";
+            out.write(key.start + "\t\t" + key.end + "\t\t" + key.feature.Name + "\t\t" + results.get(key).toString()
+                    + "\r\n");
         }
-        return res;
     }
 
     /**
      * Sorts the results per feature, and presents the locations and reason for each corresponding feature
      *
      * @param results the detection results
-     * @return the results per feature
+     * @param out     where to write the results per feature
      */
-    private String getFeatureSortedResults(Map<FeatureReference, List<SmellReason>> results) {
-        String res = ctx.config.toString() + "\r\n\r\n\r\n\r\n\r\n";
+    private void writeFeatureSortedResults(Map<FeatureReference, List<SmellReason>> results, Writer out)
+            throws IOException {
+        out.write(ctx.config.toString());
+        out.write("\r\n\r\n\r\n\r\n\r\n");
         // sort the keys after featurename, filepath and start1
         List<FeatureReference> sortedKeys = new ArrayList<>(results.keySet());
         Collections.sort(sortedKeys, new ComparatorChain<>(FEATURECONSTANT_FEATURENAME_COMPARATOR,
                 FEATURECONSTANT_FILEPATH_COMPARATOR, FEATURECONSTANT_START_COMPARATOR));
-        res += ">>> Feature-Sorted Results";
+        out.write(">>> Feature-Sorted Results");
         String currentName = "";
         String currentPath = "";
         // print the the locations and reasons sorted after feature
         for (FeatureReference key : sortedKeys) {
             if (!key.feature.Name.equals(currentName)) {
                 currentName = key.feature.Name;
-                res += "\r\n\r\n\r\n[Feature: " + currentName + "]\r\n";
+                out.write("\r\n\r\n\r\n[Feature: " + currentName + "]\r\n");
                 // reset filepath
                 currentPath = "";
             }
             if (!key.filePath.equals(currentPath)) {
                 currentPath = key.filePath;
-                res += "File: " + currentPath + "\r\n";
-                res += "Start\t\tEnd\t\tReason\r\n";
+                out.write("File: " + currentPath + "\r\n");
+                out.write("Start\t\tEnd\t\tReason\r\n");
             }
-            res += key.start + "\t\t" + key.end + "\t\t" + results.get(key).toString() + "\r\n";
+            out.write(key.start + "\t\t" + key.end + "\t\t" + results.get(key).toString() + "\r\n");
         }
-        return res;
     }
 
     /**
-     * Sorts the results per Method and returns it in a string per file/method/cnstant
+     * Sorts the results per Method and writes them per file/method/cnstant
      *
      * @param results the detection results
-     * @return the results per feature
+     * @param out     where to write the results per method
      */
-    private String getMethodSortedResults(Map<FeatureReference, List<SmellReason>> results) {
-        String res = ctx.config.toString() + "\r\n\r\n\r\n\r\n\r\n";
+    private void writeMethodSortedResults(Map<FeatureReference, List<SmellReason>> results, Writer out)
+            throws IOException {
+        out.write(ctx.config.toString());
+        out.write("\r\n\r\n\r\n\r\n\r\n");
         List<FeatureReference> sortedKeys = new ArrayList<>(results.keySet());
         Collections.sort(sortedKeys, new ComparatorChain<>(FEATURECONSTANT_FILEPATH_COMPARATOR,
                 FEATURECONSTANT_METHOD_COMPARATOR, FEATURECONSTANT_START_COMPARATOR));
-        res += ">>> Method-Sorted Results";
+        out.write(">>> Method-Sorted Results");
         Method currentMethod = null;
         String currentPath = "";
         // print feature constants with reason per File and Method
@@ -236,73 +242,84 @@ public class AnalyzedDataHandler {
             if (key.inMethod == null) continue;
             if (!key.filePath.equals(currentPath)) {
                 currentPath = key.filePath;
-                res += "\r\n\r\nFile: " + key.FilePathForDisplay();
+                out.write("\r\n\r\nFile: " + key.FilePathForDisplay());
             }
             if (!key.inMethod.equals(currentMethod)) {
                 currentMethod = key.inMethod;
-                res += "\r\nMethod: " + currentMethod.uniqueFunctionSignature + "\r\n";
-                res += "Start\t\tEnd\t\tReason\r\n";
+                out.write("\r\nMethod: " + currentMethod.uniqueFunctionSignature + "\r\n");
+                out.write("Start\t\tEnd\t\tReason\r\n");
             }
-            res += key.start + "\t\t" + key.end + "\t\t" + results.get(key).toString() + "\r\n";
+            out.write(key.start + "\t\t" + key.end + "\t\t" + results.get(key).toString() + "\r\n");
         }
-        return res;
     }
 
     /**
-     * Get the results of the complete set.
+     * Write the results of the complete set.
      *
      * @param results the result hash map from the detection process
+     * @param out     where to write the overview
      */
-    private String getOverviewResults(Map<FeatureReference, List<SmellReason>> results) {
-        String res = ctx.config.toString();
+    private void writeOverviewResults(Map<FeatureReference, List<SmellReason>> results, Writer out)
+            throws IOException {
         // amount of feature constants
-        List<String> constants = new ArrayList<>();
+        Set<String> constants = new HashSet<>();
         float percentOfConstants = 0;
         // amount of feature constants
         int countLocations = results.entrySet().size();
         float percentOfLocations = 0;
         // lofcs in project
         int completeLofc = 0;
-        // loac in project
-        Map<String, List<Integer>> loacs = new HashMap<>();
+        // loac in project, as the set of lines per file... no doubling for loac calculation
+        Map<String, BitSet> loacs = new HashMap<>();
         int completeLoac = 0;
         float loacPercentage = 0;
         for (FeatureReference constant : results.keySet()) {
             // get the amount of feature constants by saving each feature
             // constant name
-            if (!constants.contains(constant.feature.Name)) constants.add(constant.feature.Name);
+            constants.add(constant.feature.Name);
             // add lines of code to result
             completeLofc += constant.end - constant.start;
             // add all lines per file to the data structure, that are part of
-            // the feature constant... no doubling for loac calculation
-            if (!loacs.keySet().contains(constant.filePath)) loacs.put(constant.filePath, new ArrayList<>());
-            for (int i = constant.start; i <= constant.end; i++) {
-                if (!loacs.get(constant.filePath).contains(i)) loacs.get(constant.filePath).add(i);
+            // the feature constant
+            if (constant.end >= constant.start) {
+                loacs.computeIfAbsent(constant.filePath, k -> new BitSet()).set(constant.start, constant.end + 1);
             }
         }
         // calculate max loac
-        for (String file : loacs.keySet())
-            completeLoac += loacs.get(file).size();
+        for (BitSet lines : loacs.values())
+            completeLoac += lines.cardinality();
         // calculate percentages
-        loacPercentage = completeLoac * 100.0f / ctx.featureExpressions.GetLoc();
-        percentOfLocations = countLocations * 100.0f / ctx.featureExpressions.numberOfFeatureConstantReferences;
-        percentOfConstants = constants.size() * 100.0f / ctx.featureExpressions.GetFeatures().size();
+        final ProjectStats stats = ctx.GetProjectStats();
+        loacPercentage = completeLoac * 100.0f / stats.GetLoc();
+        percentOfLocations = countLocations * 100.0f / stats.GetFeatureConstantReferences();
+        percentOfConstants = constants.size() * 100.0f / stats.GetFeatureCount();
         // Complete overview
-        res += "\r\n\r\n\r\n>>> Complete Overview\r\n";
-        res += "Number of features: \t" + constants.size() + " (" + percentOfConstants + "% of "
-                + ctx.featureExpressions.GetFeatures().size() + " constants)\r\n";
-        res += "Number of feature constants: \t" + countLocations + " (" + percentOfLocations + "% of "
-                + ctx.featureExpressions.numberOfFeatureConstantReferences + " locations)\r\n";
-        res += "Lines of annotated Code: \t" + completeLoac + " (" + loacPercentage + "% of "
-                + ctx.featureExpressions.GetLoc() + " LOC)\r\n";
-        res += "Lines of feature code: \t\t" + completeLofc + "\r\n";
-        res += "Mean LOFC per feature: \t\t" + ctx.featureExpressions.GetMeanLofc() + "\r\n\r\n\r\n";
-        return res;
+        out.write(ctx.config.toString());
+        out.write("\r\n\r\n\r\n>>> Complete Overview\r\n");
+        out.write("Number of features: \t" + constants.size() + " (" + percentOfConstants + "% of "
+                + stats.GetFeatureCount() + " constants)\r\n");
+        out.write("Number of feature constants: \t" + countLocations + " (" + percentOfLocations + "% of "
+                + stats.GetFeatureConstantReferences() + " locations)\r\n");
+        out.write("Lines of annotated Code: \t" + completeLoac + " (" + loacPercentage + "% of "
+                + stats.GetLoc() + " LOC)\r\n");
+        out.write("Lines of feature code: \t\t" + completeLofc + "\r\n");
+        out.write("Mean LOFC per feature: \t\t" + stats.GetMeanLofc() + "\r\n\r\n\r\n");
     }
 
     /**** TXT Start End Saving *****/
     /**** CSV Smell Value Saving ****/
     public void SaveCsvResults(String resultsPath) {
+        SaveCsvResults(resultsPath, 0);
+    }
+
+    /**
+     * Saves the metrics CSV files, sorted by smell value (descending).
+     *
+     * @param resultsPath directory to write to
+     * @param limit       maximum number of rows per file, i.e., only the smelliest functions, files and features are
+     *                    written.  A value of 0 or less writes all of them.
+     */
+    public void SaveCsvResults(String resultsPath, int limit) {
         // ensure consistent file naming
         String fileNamePrefix = ctx.getMetricsOutputFilenamePrefix();
         String fnMethods = resultsPath + "/_metrics_functions.csv";
@@ -314,9 +331,9 @@ public class AnalyzedDataHandler {
         } catch (IOException e) {
             throw new RuntimeException("I/O error writing CSV results", e);
         }
-        this.createFunctionCSV(fnMethods);
-        this.createFeatureCSV(fnFeatures);
-        this.createFileCSV(fnFiles);
+        this.createFunctionCSV(fnMethods, limit);
+        this.createFeatureCSV(fnFeatures, limit);
+        this.createFileCSV(fnFiles, limit);
         String outDir = FileUtils.relPath(dirName);
         if (outDir.isEmpty()) outDir = ".";
         System.out.printf("Metric files (%s, %s, %s) saved in `%s'\n", fnFeatures, fnFiles, fnMethods, outDir);
@@ -326,88 +343,123 @@ public class AnalyzedDataHandler {
      * Creates the file metric csv.
      *
      * @param fileName the file name
+     * @param limit    maximum number of rows, 0 or less for all
      */
-    private void createFileCSV(String fileName) {
-        CsvFileWriterHelper h = new CsvFileWriterHelper() {
-            @Override
-            protected void actuallyDoStuff(CSVPrinter csv) throws IOException {
-                // add the header for the CSV file
-                CsvRowProvider<File, Context, FileMetricsColumns> p = new CsvRowProvider<>(FileMetricsColumns.class, ctx);
-                csv.printRecord(p.headerRow());
-                // calculate values and add records
-                List<Object[]> fileData = new ArrayList<>();
+    private void createFileCSV(String fileName, int limit) {
+        CsvRowProvider<File, Context, FileMetricsColumns> p = new CsvRowProvider<>(FileMetricsColumns.class, ctx);
+        try (CsvTableWriter csv = new CsvTableWriter(fileName)) {
+            // add the header for the CSV file
+            p.writeHeaderRow(csv);
+            // calculate values and add records
+            if (limit > 0) {
+                // only keep the smelliest files, without creating rows for the others
+                TopK<File> top = new TopK<>(limit);
                 for (File file : ctx.files.AllFiles()) {
                     file.setSmelly(isSmellyFile(file));
                     if (file.GetLinesOfAnnotatedCode() == 0) {
                         continue;
                     }
-                    fileData.add(p.dataRow(file, file.isSmelly()));
+                    top.offer(file.GetAFSmell(ctx), file);
+                }
+                for (File file : top.toSortedList())
+                    p.writeDataRow(csv, file, file.isSmelly());
+                return;
+            }
+            List<File> files = new ArrayList<>();
+            for (File file : ctx.files.AllFiles()) {
+                file.setSmelly(isSmellyFile(file));
+                if (file.GetLinesOfAnnotatedCode() == 0) {
+                    continue;
                 }
-                // sort by smell value
-                Collections.sort(fileData, new ComparatorChain<>(AFSmellComparator));
-                for (Object[] record : fileData)
-                    csv.printRecord(record);
+                files.add(file);
             }
-        };
-        h.write(fileName);
+            // sort by smell value, then create each row only when it is printed
+            Collections.sort(files, (f1, f2) -> Float.compare(f2.GetAFSmell(ctx), f1.GetAFSmell(ctx)));
+            for (File file : files)
+                p.writeDataRow(csv, file, file.isSmelly());
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CSV file `" + fileName + "'", e);
+        }
     }
 
     /**
      * Creates the method csv.
      *
      * @param fileName Name of the output CSV file
+     * @param limit    maximum number of rows, 0 or less for all
      */
-    private void createFeatureCSV(String fileName) {
-        CsvFileWriterHelper h = new CsvFileWriterHelper() {
-            @Override
-            protected void actuallyDoStuff(CSVPrinter csv) throws IOException {
-                CsvRowProvider<Feature, Context, FeatureMetricsColumns> p = new CsvRowProvider<>(FeatureMetricsColumns.class,
-                        ctx);
-                csv.printRecord(p.headerRow());
-                List<Object[]> featureData = new ArrayList<>();
+    private void createFeatureCSV(String fileName, int limit) {
+        CsvRowProvider<Feature, Context, FeatureMetricsColumns> p = new CsvRowProvider<>(FeatureMetricsColumns.class,
+                ctx);
+        try (CsvTableWriter csv = new CsvTableWriter(fileName)) {
+            p.writeHeaderRow(csv);
+            if (limit > 0) {
+                // only keep the smelliest features, without creating rows for the others
+                TopK<Feature> top = new TopK<>(limit);
                 for (Feature feat : ctx.featureExpressions.GetFeatures()) {
                     feat.setSmelly(isSmellyFeature(feat));
-                    // TODO: CHECK IF SKIPFEATURE IS REALLY NECESSARY
-                    featureData.add(p.dataRow(feat, feat.isSmelly()));
+                    top.offer(feat.GetLGSmell(ctx), feat);
                 }
-                // sort by smell value
-                Collections.sort(featureData, new ComparatorChain<>(LGSmellComparator));
-                for (Object[] record : featureData)
-                    csv.printRecord(record);
+                for (Feature feat : top.toSortedList())
+                    p.writeDataRow(csv, feat, feat.isSmelly());
+                return;
+            }
+            List<Feature> features = new ArrayList<>();
+            for (Feature feat : ctx.featureExpressions.GetFeatures()) {
+                feat.setSmelly(isSmellyFeature(feat));
+                // TODO: CHECK IF SKIPFEATURE IS REALLY NECESSARY
+                features.add(feat);
             }
-        };
-        h.write(fileName);
+            // sort by smell value, then create each row only when it is printed
+            Collections.sort(features, (f1, f2) -> Float.compare(f2.GetLGSmell(ctx), f1.GetLGSmell(ctx)));
+            for (Feature feat : features)
+                p.writeDataRow(csv, feat, feat.isSmelly());
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CSV file `" + fileName + "'", e);
+        }
     }
 
     /**
      * Creates the method csv.
      *
      * @param fileName Name of the output CSV file
+     * @param limit    maximum number of rows, 0 or less for all
      */
-    private void createFunctionCSV(final String fileName) {
-        CsvFileWriterHelper h = new CsvFileWriterHelper() {
-            @Override
-            protected void actuallyDoStuff(CSVPrinter csv) throws IOException {
-                CsvRowProvider<Method, Context, MethodMetricsColumns> p = new CsvRowProvider<>(MethodMetricsColumns.class, ctx);
-                // add the header for the csv file
-                csv.printRecord(p.headerRow());
-                // calculate values and add records
-                List<Object[]> methodData = new ArrayList<>();
+    private void createFunctionCSV(final String fileName, int limit) {
+        CsvRowProvider<Method, Context, MethodMetricsColumns> p = new CsvRowProvider<>(MethodMetricsColumns.class, ctx);
+        try (CsvTableWriter csv = new CsvTableWriter(fileName)) {
+            // add the header for the csv file
+            p.writeHeaderRow(csv);
+            // calculate values and add records
+            if (limit > 0) {
+                // only keep the smelliest functions, without creating rows for the others
+                TopK<Method> top = new TopK<>(limit);
                 for (Method meth : ctx.functions.AllMethods()) {
-                    meth.setSmelly(isSmellyMethod(meth)); // Set true if method is smelly
-                    if (meth.GetLinesOfAnnotatedCode() == 0) { // if method does not contains any features we skip it
+                    meth.setSmelly(isSmellyMethod(meth));
+                    if (meth.GetLinesOfAnnotatedCode() == 0) {
                         continue;
                     }
-                    Object[] row = p.dataRow(meth, meth.isSmelly());
-                    methodData.add(row);
+                    top.offer(meth.GetABSmell(ctx), meth);
                 }
-                // sort by smell value
-                Collections.sort(methodData, new ComparatorChain<>(ABSmellComparator));
-                for (Object[] record : methodData)
-                    csv.printRecord(record);
+                for (Method meth : top.toSortedList())
+                    p.writeDataRow(csv, meth, meth.isSmelly());
+                return;
             }
-        };
-        h.write(fileName);
+            List<Method> methods = new ArrayList<>();
+            for (Method meth : ctx.functions.AllMethods()) {
+                meth.setSmelly(isSmellyMethod(meth)); // Set true if method is smelly
+                if (meth.GetLinesOfAnnotatedCode() == 0) { // if method does not contains any features we skip it
+                    continue;
+                }
+                methods.add(meth);
+            }
+            // sort by smell value, then create each row only when it is printed
+            Collections.sort(methods, (m1, m2) -> Float.compare(m2.GetABSmell(ctx), m1.GetABSmell(ctx)));
+            for (Method meth : methods)
+                p.writeDataRow(csv, meth, meth.isSmelly());
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CSV file `" + fileName + "'", e);
+        }
     }
 
     /**
@@ -426,7 +478,7 @@ public class AnalyzedDataHandler {
                 && method.GetFeatureConstantCount() < conf.Method_NumberOfFeatureConstants) {
             return false;
         }
-        if (conf.Method_NestingSum_Mand && method.nestingSum < conf.Method_NestingSum) {
+        if (conf.Method_NestingSum_Mand && method.GetNestingSum() < conf.Method_NestingSum) {
             return false;
         }
         return true;
@@ -446,7 +498,7 @@ public class AnalyzedDataHandler {
         if (conf.File_NumberOfFeatureConstants_Mand
                 && file.GetFeatureConstantCount() < conf.File_NumberOfFeatureConstants)
             return false;
-        if (conf.File_NestingSum_Mand && file.nestingSum < conf.File_NestingSum) return false;
+        if (conf.File_NestingSum_Mand && file.GetNestingSum() < conf.File_NestingSum) return false;
         return true;
     }
 
@@ -458,7 +510,7 @@ public class AnalyzedDataHandler {
      */
     private boolean isSmellyFeature(Feature feat) {
         final DetectionConfig conf = ctx.config;
-        if (conf.Feature_NumberNofc_Mand && (feat.getReferences().size() < conf.Feature_NumberNofc)) return false;
+        if (conf.Feature_NumberNofc_Mand && (feat.GetReferenceCount() < conf.Feature_NumberNofc)) return false;
         if (conf.Feature_NumberLofc_Mand && (feat.getLofc() < conf.Feature_NumberLofc)) return false;
         return true;
     }
@@ -1,21 +1,30 @@
 package com.easy.detection.output;
 
 import com.easy.detection.data.Context;
-import com.easy.detection.data.FeatureExpressionCollection;
 import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.ProjectStats;
 import com.easy.detection.detector.SmellReason;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class AttributeOverview {
 
     private final Context ctx;
     public SmellReason Reason = null;
-    private ArrayList<String> featureConstants = null;
+    private Set<String> featureConstants = null;
     private int noFeatureLocs = 0;
     private int lofc = 0;
-    private HashMap<String, ArrayList<Integer>> loacs = null;
+    /**
+     * Annotated lines per file
+     */
+    private Map<String, BitSet> loacs = null;
 
     /**
      * Instantiates a new attribute overview.
@@ -27,7 +36,7 @@ public class AttributeOverview {
         this.ctx = ctx;
         this.Reason = reason;
         this.loacs = new HashMap<>();
-        this.featureConstants = new ArrayList<>();
+        this.featureConstants = new HashSet<>();
     }
 
     /**
@@ -41,40 +50,45 @@ public class AttributeOverview {
         this.lofc = constant.end - constant.start;
 
         // add feature constant if not already part of it
-        if (!this.featureConstants.contains(constant.feature.Name))
-            this.featureConstants.add(constant.feature.Name);
+        this.featureConstants.add(constant.feature.Name);
 
         // add all lines per file to the data structure, that are part of the feature constant... no doubling for loac calculation
-        if (!loacs.keySet().contains(constant.filePath))
-            loacs.put(constant.filePath, new ArrayList<>());
-
-        for (int i = constant.start; i <= constant.end; i++) {
-            if (!loacs.get(constant.filePath).contains(i))
-                loacs.get(constant.filePath).add(i);
-        }
+        if (constant.end >= constant.start)
+            loacs.computeIfAbsent(constant.filePath, k -> new BitSet()).set(constant.start, constant.end + 1);
     }
 
-    @Override
-    public String toString() {
-        FeatureExpressionCollection featureExpressions = ctx.featureExpressions;
+    /**
+     * Writes the overview, as returned by {@link #toString()}, to the given writer.
+     */
+    public void appendTo(Writer out) throws IOException {
+        ProjectStats stats = ctx.GetProjectStats();
 
         // calculate max loac
         int completeLoac = 0;
-        for (String file : loacs.keySet())
-            completeLoac += loacs.get(file).size();
+        for (BitSet lines : loacs.values())
+            completeLoac += lines.cardinality();
 
         // calculate percentages
-        float percentOfLoc = completeLoac * 100 / featureExpressions.GetLoc();
-        float percentOfLocations = this.noFeatureLocs * 100 / featureExpressions.numberOfFeatureConstantReferences;
-        float percentOfConstants = this.featureConstants.size() * 100 / featureExpressions.GetFeatures().size();
+        float percentOfLoc = completeLoac * 100 / stats.GetLoc();
+        float percentOfLocations = this.noFeatureLocs * 100 / stats.GetFeatureConstantReferences();
+        float percentOfConstants = this.featureConstants.size() * 100 / stats.GetFeatureCount();
 
         // Complete overview
-        String res = ">>> Overview " + Reason + "\r\n";
-        res += "Number of features: \t" + this.featureConstants.size() + " (" + percentOfConstants + "% of " + featureExpressions.GetFeatures().size() + " constants)\r\n";
-        res += "Number of feature constants: \t" + this.noFeatureLocs + " (" + percentOfLocations + "% of " + featureExpressions.numberOfFeatureConstantReferences + " locations)\r\n";
-        res += "Lines of annotated Code: \t" + completeLoac + " (" + percentOfLoc + "% of " + featureExpressions.GetLoc() + " LOC)\r\n";
-        res += "Lines of feature code: \t\t" + this.lofc + "\r\n\r\n";
+        out.write(">>> Overview " + Reason + "\r\n");
+        out.write("Number of features: \t" + this.featureConstants.size() + " (" + percentOfConstants + "% of " + stats.GetFeatureCount() + " constants)\r\n");
+        out.write("Number of feature constants: \t" + this.noFeatureLocs + " (" + percentOfLocations + "% of " + stats.GetFeatureConstantReferences() + " locations)\r\n");
+        out.write("Lines of annotated Code: \t" + completeLoac + " (" + percentOfLoc + "% of " + stats.GetLoc() + " LOC)\r\n");
+        out.write("Lines of feature code: \t\t" + this.lofc + "\r\n\r\n");
+    }
 
-        return res;
+    @Override
+    public String toString() {
+        StringWriter res = new StringWriter();
+        try {
+            appendTo(res);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return res.toString();
     }
 }
@@ -18,4 +18,17 @@ public interface CsvColumnValueProvider<TInput, TContext> {
      * configuration
      */
     Object csvColumnValue(TInput o, TContext ctx);
+
+    /**
+     * Appends the value of an input object <code>o</code> in the CSV file column to the current record of
+     * <code>out</code>.  Columns whose values are primitive numbers should override this method to append them without
+     * boxing.
+     *
+     * @param out the CSV writer
+     * @param o   an object
+     * @param ctx the context holding the smell detection configuration and other stuff
+     */
+    default void appendCsvColumnValue(CsvTableWriter out, TInput o, TContext ctx) {
+        out.value(csvColumnValue(o, ctx));
+    }
 }
@@ -3,20 +3,24 @@ package com.easy.detection.output;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
 /**
  * Created by wfenske on 28.02.17.
  */
 public abstract class CsvFileWriterHelper {
+    private static final int BUFFER_SIZE = 1 << 16;
+
     public void write(File file) {
-        FileWriter writer = null;
+        Writer writer = null;
         final String fileName = file.getPath();
         CSVPrinter csv = null;
         try {
-            writer = new FileWriter(file);
+            writer = new BufferedWriter(new FileWriter(file), BUFFER_SIZE);
             try {
                 csv = new CSVPrinter(writer, CSVFormat.EXCEL);
                 actuallyDoStuff(csv);
@@ -1,5 +1,7 @@
 package com.easy.detection.output;
 
+import java.io.IOException;
+
 /**
  * Helps marshall a Java object into its representation as a CSV row.  Specifically, the object is converted into an array of objects, which are later converted into <code>String</code>s using #toString() and then CSV-escaped by some CSV library.
  *
@@ -13,16 +15,49 @@ package com.easy.detection.output;
 public class CsvRowProvider<TInput, TContext, TEnum extends Enum<?> & CsvColumnValueProvider<TInput, TContext>> {
     private final Class<? extends TEnum> columnsClass;
     private final TContext ctx;
+    /**
+     * The columns, looked up once because {@link Class#getEnumConstants()} returns a fresh copy on every call
+     */
+    private final TEnum[] columns;
 
     public CsvRowProvider(Class<? extends TEnum> columnsClass, TContext ctx) {
         this.columnsClass = columnsClass;
         this.ctx = ctx;
+        this.columns = columnsClass.getEnumConstants();
+        if (this.columns == null) throw new IllegalArgumentException("Not an enum type: " + columnsClass);
     }
 
     public Object[] headerRow() {
         return CsvEnumUtils.headerRow(columnsClass);
     }
 
+    /**
+     * Writes the header row, including the trailing &quot;Smelly&quot; column, as a record of the given writer
+     */
+    public void writeHeaderRow(CsvTableWriter out) throws IOException {
+        for (TEnum column : columns) {
+            out.value(column.name());
+        }
+        out.value("Smelly");
+        out.endRecord();
+    }
+
+    /**
+     * Writes the column values of the given object as a record of the given writer, without creating an intermediate
+     * array of values
+     *
+     * @param out      The CSV writer
+     * @param o        The input object
+     * @param isSmelly Value of the trailing &quot;Smelly&quot; column
+     */
+    public void writeDataRow(CsvTableWriter out, TInput o, boolean isSmelly) throws IOException {
+        for (TEnum column : columns) {
+            column.appendCsvColumnValue(out, o, ctx);
+        }
+        out.value(isSmelly);
+        out.endRecord();
+    }
+
     /**
      * Convert the given object into a list of column values for serialization into a CSv file
      *
@@ -30,6 +65,12 @@ public class CsvRowProvider<TInput, TContext, TEnum extends Enum<?> & CsvColumnV
      * @return An array of objects, one for each column of the resulting CSV file
      */
     public Object[] dataRow(TInput o, boolean isSmelly) {
-        return CsvEnumUtils.dataRow(columnsClass, o, ctx, isSmelly);
+        final int len = columns.length;
+        Object[] r = new Object[len + 1];
+        for (int i = 0; i < len; i++) {
+            r[i] = columns[i].csvColumnValue(o, ctx);
+        }
+        r[len] = isSmelly;
+        return r;
     }
 }
@@ -0,0 +1,178 @@
+package com.easy.detection.output;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes CSV records in the same format as {@link org.apache.commons.csv.CSVPrinter} with
+ * {@link org.apache.commons.csv.CSVFormat#EXCEL}, but appends values, including primitive numbers, directly into a
+ * reusable buffer instead of converting each one into a <code>String</code> first.  The buffer is handed to the
+ * underlying writer in large chunks.
+ * <p>
+ * Values are added one by one using the <code>value</code> methods; {@link #endRecord()} terminates the current
+ * record.
+ * </p>
+ *
+ * @see CsvRowProvider#writeHeaderRow(CsvTableWriter)
+ * @see CsvRowProvider#writeDataRow(CsvTableWriter, Object, boolean)
+ */
+public class CsvTableWriter implements Closeable {
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final String RECORD_SEPARATOR = "\r\n";
+
+    private final Writer out;
+    private final StringBuilder buf = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    private boolean newRecord = true;
+
+    /**
+     * @param out the writer to write to; it is closed along with this object
+     */
+    public CsvTableWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * @param fileName the file to create or overwrite
+     * @throws IOException if the file cannot be opened for writing
+     */
+    public CsvTableWriter(String fileName) throws IOException {
+        this(new OutputStreamWriter(new FileOutputStream(fileName)));
+    }
+
+    private StringBuilder beginValue() {
+        if (!newRecord) buf.append(DELIMITER);
+        newRecord = false;
+        return buf;
+    }
+
+    public CsvTableWriter value(int v) {
+        beginValue().append(v);
+        return this;
+    }
+
+    public CsvTableWriter value(long v) {
+        beginValue().append(v);
+        return this;
+    }
+
+    public CsvTableWriter value(float v) {
+        beginValue().append(v);
+        return this;
+    }
+
+    public CsvTableWriter value(double v) {
+        beginValue().append(v);
+        return this;
+    }
+
+    public CsvTableWriter value(boolean v) {
+        beginValue().append(v);
+        return this;
+    }
+
+    /**
+     * Appends a string value, quoted as necessary.  <code>null</code> is written as the empty string, but never quoted.
+     */
+    public CsvTableWriter value(CharSequence v) {
+        final boolean first = newRecord;
+        final StringBuilder sb = beginValue();
+        if (v != null) appendQuotedIfNeeded(sb, v, first);
+        return this;
+    }
+
+    /**
+     * Appends a value of unknown type.  Boxed numbers and booleans are appended without converting them into a
+     * <code>String</code>, anything else is quoted as necessary.
+     */
+    public CsvTableWriter value(Object v) {
+        if (v instanceof Integer) return value(((Integer) v).intValue());
+        if (v instanceof Float) return value(((Float) v).floatValue());
+        if (v instanceof Boolean) return value(((Boolean) v).booleanValue());
+        if (v instanceof Long) return value(((Long) v).longValue());
+        if (v instanceof Double) return value(((Double) v).doubleValue());
+        if (v instanceof CharSequence) return value((CharSequence) v);
+        return value(v == null ? null : v.toString());
+    }
+
+    /**
+     * Terminates the current record.
+     */
+    public void endRecord() throws IOException {
+        buf.append(RECORD_SEPARATOR);
+        newRecord = true;
+        if (buf.length() >= FLUSH_THRESHOLD) flushBuffer();
+    }
+
+    /**
+     * Writes a whole record.
+     */
+    public void printRecord(Object... values) throws IOException {
+        for (Object v : values) {
+            value(v);
+        }
+        endRecord();
+    }
+
+    private void flushBuffer() throws IOException {
+        out.append(buf);
+        buf.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Appends a value with the minimal quoting that Commons CSV 1.4 applies: values are quoted if they contain the
+     * delimiter, the quote character or a line break, if they start with a character that could confuse a parser, or
+     * if they end in whitespace.  The first value of a record is also quoted unless it starts with an ASCII letter or
+     * digit, and if it is empty, so the record does not look like an empty line.
+     */
+    private static void appendQuotedIfNeeded(StringBuilder sb, CharSequence value, boolean newRecord) {
+        final int len = value.length();
+        boolean quote = false;
+        int pos = 0;
+        if (len == 0) {
+            quote = newRecord;
+        } else {
+            char c = value.charAt(0);
+            if (newRecord && (c < '0' || c > '9' && c < 'A' || c > 'Z' && c < 'a' || c > 'z')) {
+                quote = true;
+            } else if (c <= '#') {
+                quote = true;
+            } else {
+                for (; pos < len; pos++) {
+                    c = value.charAt(pos);
+                    if (c == '\n' || c == '\r' || c == QUOTE || c == DELIMITER) {
+                        quote = true;
+                        break;
+                    }
+                }
+                if (!quote) {
+                    quote = value.charAt(len - 1) <= ' ';
+                }
+            }
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append(QUOTE);
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) sb.append(QUOTE);
+            sb.append(c);
+        }
+        sb.append(QUOTE);
+    }
+}
@@ -21,51 +21,62 @@ public enum FeatureMetricsColumns implements CsvColumnValueProvider<Feature, Con
     LGSmell {
         @Override
         public Float csvColumnValue(Feature f, Context ctx) {
-            // # featureConstants/#TotalLocations
-            float constSmell = (float) FeatureMetricsColumns.ConstantsSmell.csvColumnValue(f, ctx);
-            // LOFC/TotalLoc
-            float lofcSmell = (float) FeatureMetricsColumns.LOFCSmell.csvColumnValue(f, ctx);
-            float sumLg = constSmell + lofcSmell;
-            return sumLg;
+            return f.GetLGSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Feature f, Context ctx) {
+            out.value(f.GetLGSmell(ctx));
         }
     },
     SSSmell {
         @Override
         public Object csvColumnValue(Feature f, Context ctx) {
-            float constSmell = (float) FeatureMetricsColumns.ConstantsSmell.csvColumnValue(f, ctx);
-            // CompilUnit/MaxCompilUnits
-            float compilUnitsSmell = (float) FeatureMetricsColumns.CUSmell.csvColumnValue(f, ctx);
-            float sumSS = constSmell + compilUnitsSmell;
-            return sumSS;
+            return f.GetSSSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Feature f, Context ctx) {
+            out.value(f.GetSSSmell(ctx));
         }
     },
     ConstantsSmell {
         @Override
         public Float csvColumnValue(Feature f, Context ctx) {
-            float constSmell = ctx.config.Feature_NumberNofc_Weight * (((float) f.getReferences().size())
-                    / (ctx.featureExpressions.numberOfFeatureConstantReferences));
-            return constSmell;
+            return f.GetConstantsSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Feature f, Context ctx) {
+            out.value(f.GetConstantsSmell(ctx));
         }
     },
     LOFCSmell {
         @Override
         public Float csvColumnValue(Feature f, Context ctx) {
-            float lofcSmell = ctx.config.Feature_NumberLofc_Weight
-                    * (((float) f.getLofc()) / (ctx.featureExpressions.GetLoc()));
-            return lofcSmell;
+            return f.GetLOFCSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Feature f, Context ctx) {
+            out.value(f.GetLOFCSmell(ctx));
         }
     },
     CUSmell {
         @Override
         public Float csvColumnValue(Feature f, Context ctx) {
-            float compilUnitsSmell = (f.compilationFiles.size()) / ((float) ctx.files.AllFiles().size());
-            return compilUnitsSmell;
+            return f.GetCUSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Feature f, Context ctx) {
+            out.value(f.GetCUSmell(ctx));
         }
     },
     NOFC {
         @Override
         public Integer csvColumnValue(Feature f, Context ctx) {
-            return f.getReferences().size();
+            return f.GetReferenceCount();
         }
     },
     /**
@@ -74,7 +85,7 @@ public enum FeatureMetricsColumns implements CsvColumnValueProvider<Feature, Con
     MAXNOFC {
         @Override
         public Object csvColumnValue(Feature f, Context ctx) {
-            return ctx.featureExpressions.numberOfFeatureConstantReferences;
+            return ctx.GetProjectStats().GetFeatureConstantReferences();
         }
     },
     LOFC {
@@ -86,13 +97,13 @@ public enum FeatureMetricsColumns implements CsvColumnValueProvider<Feature, Con
     ProjectLOC {
         @Override
         public Object csvColumnValue(Feature f, Context ctx) {
-            return ctx.featureExpressions.GetLoc();
+            return ctx.GetProjectStats().GetLoc();
         }
     },
     NOCU {
         @Override
         public Object csvColumnValue(Feature f, Context ctx) {
-            return f.compilationFiles.size();
+            return f.GetAmountCompilationFiles();
         }
     };
 }
@@ -21,45 +21,45 @@ public enum FileMetricsColumns implements CsvColumnValueProvider<com.easy.detect
     AFSmell {
         @Override
         public Float csvColumnValue(File file, Context ctx) {
-            // calculate smell values
-            // Loac/Loc * #FeatLocs
-            float featLocSmell = (float) LocationSmell.csvColumnValue(file, ctx);
-            // #Constants/#FeatLocs
-            float featConstSmell = (float) ConstantsSmell.csvColumnValue(file, ctx);
-            // Loac/Loc * #FeatLocs
-            float nestSumSmell = (float) NestingSmell.csvColumnValue(file, ctx);
-            float aggregated = (featLocSmell + featConstSmell + nestSumSmell);
-            return aggregated;
+            return file.GetAFSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, File file, Context ctx) {
+            out.value(file.GetAFSmell(ctx));
         }
     },
     LocationSmell {
         @Override
         public Float csvColumnValue(File file, Context ctx) {
-            // calculate smell values
-            // Loac/Loc * #FeatLocs
-            float featLocSmell = ctx.config.File_LoacToLocRatio_Weight
-                    * (((float) file.GetLinesOfAnnotatedCode() / (float) file.loc) * file.numberOfFeatureLocations);
-            return featLocSmell;
+            return file.GetLocationSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, File file, Context ctx) {
+            out.value(file.GetLocationSmell(ctx));
         }
     },
     ConstantsSmell {
         @Override
         public Float csvColumnValue(File file, Context ctx) {
-            // calculate smell values
-            // Loac/Loc * #FeatLocs
-            // #Constants/#FeatLocs
-            float featConstSmell = ctx.config.File_NumberOfFeatureConstants_Weight
-                    * ((float) file.GetFeatureConstantCount() / (float) file.numberOfFeatureLocations);
-            return featConstSmell;
+            return file.GetConstantsSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, File file, Context ctx) {
+            out.value(file.GetConstantsSmell(ctx));
         }
     },
     NestingSmell {
         @Override
         public Float csvColumnValue(File file, Context ctx) {
-            // Loac/Loc * #FeatLocs
-            float nestSumSmell = ctx.config.Method_NestingSum_Weight
-                    * ((float) file.nestingSum / (float) file.numberOfFeatureLocations);
-            return nestSumSmell;
+            return file.GetNestingSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, File file, Context ctx) {
+            out.value(file.GetNestingSmell(ctx));
         }
     },
     LOC {
@@ -89,19 +89,19 @@ public enum FileMetricsColumns implements CsvColumnValueProvider<com.easy.detect
     NOFC_NonDup {
         @Override
         public Integer csvColumnValue(File file, Context ctx) {
-            return file.numberFeatureConstantsNonDup;
+            return file.GetNumberOfFeatureConstantsNonDup();
         }
     },
     NOFL {
         @Override
         public Integer csvColumnValue(File file, Context ctx) {
-            return file.numberOfFeatureLocations;
+            return file.GetNumberOfFeatureLocations();
         }
     },
     NONEST {
         @Override
         public Integer csvColumnValue(File file, Context ctx) {
-            return file.nestingSum;
+            return file.GetNestingSum();
         }
     };
 }
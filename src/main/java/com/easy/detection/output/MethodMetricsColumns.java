@@ -46,13 +46,12 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     ABSmell {
         @Override
         public Float csvColumnValue(Method m, Context ctx) {
-            float featLocSmell = (float) MethodMetricsColumns.LocationSmell.csvColumnValue(m, ctx);
-            // #Constants/#FeatLocs
-            float featConstSmell = (float) MethodMetricsColumns.ConstantsSmell.csvColumnValue(m, ctx);
-            // Loac/Loc * #FeatLocs
-            float nestSumSmell = (float) MethodMetricsColumns.NestingSmell.csvColumnValue(m, ctx);
-            float sum = (featLocSmell + featConstSmell + nestSumSmell);
-            return sum;
+            return m.GetABSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Method m, Context ctx) {
+            out.value(m.GetABSmell(ctx));
         }
 
         @Override
@@ -63,9 +62,12 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     LocationSmell {
         @Override
         public Float csvColumnValue(Method m, Context ctx) {
-            float featLocSmell = ctx.config.Method_LoacToLocRatio_Weight
-                    * (((float) m.GetLinesOfAnnotatedCode() / (float) m.getNetLoc()) * m.numberFeatureLocations);
-            return featLocSmell;
+            return m.GetLocationSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Method m, Context ctx) {
+            out.value(m.GetLocationSmell(ctx));
         }
 
         @Override
@@ -76,9 +78,12 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     ConstantsSmell {
         @Override
         public Float csvColumnValue(Method m, Context ctx) {
-            float featConstSmell = ctx.config.Method_NumberOfFeatureConstants_Weight
-                    * ((float) m.GetFeatureConstantCount() / (float) m.numberFeatureLocations);
-            return featConstSmell;
+            return m.GetConstantsSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Method m, Context ctx) {
+            out.value(m.GetConstantsSmell(ctx));
         }
 
         @Override
@@ -89,9 +94,12 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     NestingSmell {
         @Override
         public Float csvColumnValue(Method m, Context ctx) {
-            float nestSumSmell = ctx.config.Method_NestingSum_Weight
-                    * ((float) m.nestingSum / (float) m.numberFeatureLocations);
-            return nestSumSmell;
+            return m.GetNestingSmell(ctx);
+        }
+
+        @Override
+        public void appendCsvColumnValue(CsvTableWriter out, Method m, Context ctx) {
+            out.value(m.GetNestingSmell(ctx));
         }
 
         @Override
@@ -135,7 +143,7 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     NOFL {
         @Override
         public Integer csvColumnValue(Method m, Context ctx) {
-            return m.numberFeatureLocations;
+            return m.GetNumberOfFeatureLocations();
         }
 
         @Override
@@ -157,7 +165,7 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     NOFC_NonDup {
         @Override
         public Integer csvColumnValue(Method m, Context ctx) {
-            return m.numberFeatureConstantsNonDup;
+            return m.GetNumberOfFeatureConstantsNonDup();
         }
 
         @Override
@@ -168,7 +176,7 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     NONEST {
         @Override
         public Integer csvColumnValue(Method m, Context ctx) {
-            return m.nestingSum;
+            return m.GetNestingSum();
         }
 
         @Override
@@ -182,7 +190,7 @@ public enum MethodMetricsColumns implements CsvColumnValueProvider<Method, Conte
     NONEG {
         @Override
         public Integer csvColumnValue(Method m, Context ctx) {
-            return m.negationCount;
+            return m.GetNegationCount();
         }
 
         @Override
@@ -30,9 +30,9 @@ public class ProcessedDataHandler {
             }
 
             @Override
-            public void save(Context ctx, SimpleFileWriter writer) throws IOException {
+            public void save(Context ctx, File dir, SimpleFileWriter writer) throws IOException {
                 Consumer<Writer> xmlProvider = ctx.featureExpressions.SerializeFeatures();
-                writer.writeGzipped(new File(filename(ctx)), xmlProvider);
+                writer.writeGzipped(new File(dir, filename(ctx)), xmlProvider);
             }
 
             @Override
@@ -47,9 +47,9 @@ public class ProcessedDataHandler {
             }
 
             @Override
-            public void save(Context ctx, SimpleFileWriter writer) throws IOException {
+            public void save(Context ctx, File dir, SimpleFileWriter writer) throws IOException {
                 Consumer<Writer> xmlProvider = ctx.functions.SerializeMethods();
-                writer.writeGzipped(new File(filename(ctx)), xmlProvider);
+                writer.writeGzipped(new File(dir, filename(ctx)), xmlProvider);
             }
 
             @Override
@@ -64,11 +64,11 @@ public class ProcessedDataHandler {
             }
 
             @Override
-            public void save(Context ctx, SimpleFileWriter writer) throws IOException {
+            public void save(Context ctx, File dir, SimpleFileWriter writer) throws IOException {
                 String generalInput = "FeatureExpressionCollection=" + ctx.featureExpressions.GetLoc() + ";"
                         + ctx.featureExpressions.GetMeanLofc() + ";"
                         + ctx.featureExpressions.numberOfFeatureConstantReferences;
-                writer.write(new File(filename(ctx)), generalInput);
+                writer.write(new File(dir, filename(ctx)), generalInput);
             }
 
             @Override
@@ -91,9 +91,9 @@ public class ProcessedDataHandler {
             }
 
             @Override
-            public void save(Context ctx, SimpleFileWriter writer) throws IOException {
+            public void save(Context ctx, File dir, SimpleFileWriter writer) throws IOException {
                 Consumer<Writer> xmlProvider = ctx.files.SerializeFiles();
-                writer.writeGzipped(new File(filename(ctx)), xmlProvider);
+                writer.writeGzipped(new File(dir, filename(ctx)), xmlProvider);
             }
 
             @Override
@@ -104,7 +104,7 @@ public class ProcessedDataHandler {
 
         public abstract String filename(Context ctx);
 
-        public abstract void save(Context ctx, SimpleFileWriter writer) throws IOException;
+        public abstract void save(Context ctx, File dir, SimpleFileWriter writer) throws IOException;
 
         public abstract void load(Context ctx, File file) throws IOException;
 
@@ -125,19 +125,32 @@ public class ProcessedDataHandler {
 
     /**
      * Save the data processed during the operation into a general file,
-     * features file and a method file
+     * features file and a method file in the working directory
      */
     public void SaveProcessedData() {
+        SaveProcessedData(".");
+    }
+
+    /**
+     * Save the data processed during the operation into a general file,
+     * features file and a method file
+     *
+     * @param folderPath the path of the folder to save the processed data files in
+     */
+    public void SaveProcessedData(String folderPath) {
+        final File dir = new File(folderPath);
         LOG.info("Saving processed data ...");
 
         // Save files
         final SimpleFileWriter writer = new SimpleFileWriter();
         ProcessedDataFile currentFile = null;
+        // each file may contain any entity, so none of them must refer to data outside of the heap
+        ctx.MoveLineListsToHeap();
         try {
             for (ProcessedDataFile f : ProcessedDataFile.values()) {
                 currentFile = f;
                 LOG.info("Writing output for " + f);
-                f.save(ctx, writer);
+                f.save(ctx, dir, writer);
                 LOG.info("Done writing output for " + f);
             }
         } catch (IOException e) {
@@ -2,14 +2,26 @@ package com.easy.detection.output;
 
 import com.easy.util.FileUtils;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.Consumer;
 
 public class SimpleFileWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Produces the contents of a file by writing them to a {@link Writer}
+     */
+    public interface ContentWriter {
+        void writeTo(Writer out) throws IOException;
+    }
+
     private SortedSet<String> fileNames = new TreeSet<>();
     private String dir = null;
 
@@ -18,6 +30,18 @@ public class SimpleFileWriter {
         rememberWrittenFile(f);
     }
 
+    /**
+     * Writes the contents of a file as they are produced, through a buffer, rather than building them in memory first.
+     * Like {@link #write(File, String)}, creates the parent directories of the file if they do not exist yet.
+     */
+    public void write(File f, ContentWriter contentWriter) throws IOException {
+        OutputStream stream = org.apache.commons.io.FileUtils.openOutputStream(f);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(stream, FileUtils.DEFAULT_CHARSET), BUFFER_SIZE)) {
+            contentWriter.writeTo(out);
+        }
+        rememberWrittenFile(f);
+    }
+
     public void writeGzipped(File f, Consumer<Writer> dataProvider) throws IOException {
         FileUtils.writeGzipped(f, dataProvider);
         rememberWrittenFile(f);
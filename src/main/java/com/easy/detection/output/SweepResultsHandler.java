@@ -0,0 +1,83 @@
+package com.easy.detection.output;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.Feature;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import com.easy.detection.data.Method;
+import com.easy.detection.detector.ThresholdSweep;
+import com.easy.util.FileUtils;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the results of a {@link ThresholdSweep} as CSV files: one with the number of smelly entities and feature
+ * constant references per metric and threshold, and one listing the smelly entities themselves.
+ */
+public class SweepResultsHandler {
+    private final Context ctx;
+
+    public SweepResultsHandler(Context ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * Runs the sweep and saves its results.
+     *
+     * @param thresholdsByMetric the thresholds to evaluate
+     * @param resultsPath        the directory to write to, which must exist
+     */
+    public void SaveCsvResults(Map<ThresholdSweep.Metric, double[]> thresholdsByMetric, String resultsPath) {
+        final ThresholdSweep sweep = new ThresholdSweep(ctx);
+        final String fnSweep = resultsPath + "/" + ctx.getGeneralOutputFilenamePrefix() + "sweep.csv";
+        final String fnMembers = resultsPath + "/" + ctx.getGeneralOutputFilenamePrefix() + "sweep_members.csv";
+
+        new CsvFileWriterHelper() {
+            @Override
+            protected void actuallyDoStuff(CSVPrinter csv) throws IOException {
+                csv.printRecord("Metric", "Threshold", "SmellyEntities", "SmellyFeatureConstantReferences");
+                for (ThresholdSweep.Result r : sweep.Sweep(thresholdsByMetric)) {
+                    csv.printRecord(r.metric.name(), r.threshold, r.smellyEntities, r.smellyFeatureConstantReferences);
+                }
+            }
+        }.write(fnSweep);
+
+        new CsvFileWriterHelper() {
+            @Override
+            protected void actuallyDoStuff(CSVPrinter csv) throws IOException {
+                csv.printRecord("Metric", "Entity", "Value", "FeatureConstantReferences", "MaxSmellyThreshold");
+                for (Map.Entry<ThresholdSweep.Metric, double[]> e : thresholdsByMetric.entrySet()) {
+                    List<ThresholdSweep.Member> members = sweep.Members(e.getKey(), e.getValue());
+                    for (ThresholdSweep.Member m : members) {
+                        csv.printRecord(m.metric.name(), entityName(m.entity), m.value, m.featureConstantReferences,
+                                m.maxSmellyThreshold);
+                    }
+                }
+            }
+        }.write(fnMembers);
+
+        System.out.println("Threshold sweep results (" + FileUtils.relPathForDisplay(fnSweep) + ", "
+                + FileUtils.relPathForDisplay(fnMembers) + ") saved.");
+    }
+
+    private static String entityName(Object entity) {
+        if (entity instanceof Method) {
+            Method m = (Method) entity;
+            return m.ProjectRelativeFilePath() + ":" + m.start1 + ": " + m.uniqueFunctionSignature;
+        }
+        if (entity instanceof File) {
+            return ((File) entity).FilePathForDisplay();
+        }
+        if (entity instanceof Feature) {
+            return ((Feature) entity).Name;
+        }
+        if (entity instanceof FeatureReference) {
+            FeatureReference ref = (FeatureReference) entity;
+            return ref.FilePathForDisplay() + ":" + ref.start + ": " + ref.feature.Name;
+        }
+        return String.valueOf(entity);
+    }
+}
@@ -0,0 +1,130 @@
+package com.easy.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable grouping map whose keys are the <code>int</code>s from 0 (inclusive) to some upper bound (exclusive),
+ * such as the index of a file.  All values are stored in a single array, grouped by key, plus an array of offsets into
+ * it.  Compared to a {@link GroupingListMap}, this needs no map entries, no boxed keys and no list per key.
+ * <p>
+ * Instances are created using a {@link Builder}.  The values of each key are returned in the order they were added.
+ * </p>
+ *
+ * @param <V> Type of values of this map
+ */
+public class FlatIntGroupingMap<V> {
+    /**
+     * The values of key <code>k</code> are stored from <code>offsets[k]</code> (inclusive) to
+     * <code>offsets[k + 1]</code> (exclusive)
+     */
+    private final int[] offsets;
+    private final Object[] values;
+
+    private FlatIntGroupingMap(int[] offsets, Object[] values) {
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * @return the number of distinct keys this map was built for
+     */
+    public int numberOfKeys() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param key a key between 0 (inclusive) and {@link #numberOfKeys()} (exclusive)
+     * @return the number of values of the key
+     */
+    public int size(int key) {
+        return offsets[key + 1] - offsets[key];
+    }
+
+    /**
+     * @param key a key between 0 (inclusive) and {@link #numberOfKeys()} (exclusive)
+     * @return An unmodifiable view of the values of the key, never <code>null</code>
+     */
+    public List<V> get(int key) {
+        final int from = offsets[key];
+        final int len = offsets[key + 1] - from;
+        if (len == 0) return Collections.emptyList();
+        return new Group<>(values, from, len);
+    }
+
+    private static class Group<V> extends AbstractList<V> implements RandomAccess {
+        private final Object[] values;
+        private final int from;
+        private final int len;
+
+        Group(Object[] values, int from, int len) {
+            this.values = values;
+            this.from = from;
+            this.len = len;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+            if (index < 0 || index >= len) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + len);
+            return (V) values[from + index];
+        }
+
+        @Override
+        public int size() {
+            return len;
+        }
+    }
+
+    /**
+     * Collects key-value pairs and sorts them into a {@link FlatIntGroupingMap}
+     *
+     * @param <V> Type of values of the map
+     */
+    public static class Builder<V> {
+        private final int numberOfKeys;
+        private int[] keys = new int[16];
+        private Object[] values = new Object[16];
+        private int size = 0;
+
+        /**
+         * @param numberOfKeys upper bound (exclusive) of the keys of the map
+         */
+        public Builder(int numberOfKeys) {
+            this.numberOfKeys = numberOfKeys;
+        }
+
+        public void put(int key, V value) {
+            if (key < 0 || key >= numberOfKeys) {
+                throw new IllegalArgumentException("Key out of range [0, " + numberOfKeys + "): " + key);
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        public FlatIntGroupingMap<V> build() {
+            // counting sort by key, stable w.r.t. the order in which values were added
+            int[] offsets = new int[numberOfKeys + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[keys[i] + 1]++;
+            }
+            for (int k = 0; k < numberOfKeys; k++) {
+                offsets[k + 1] += offsets[k];
+            }
+            int[] next = Arrays.copyOf(offsets, numberOfKeys);
+            Object[] grouped = new Object[size];
+            for (int i = 0; i < size; i++) {
+                grouped[next[keys[i]]++] = values[i];
+            }
+            return new FlatIntGroupingMap<>(offsets, grouped);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.easy.util;
+
+/**
+ * A map from primitive <code>int</code> keys to objects.  Uses open addressing with linear probing, so neither the keys
+ * are boxed nor is an entry object allocated per mapping, as in {@link java.util.HashMap}.  <code>null</code> values
+ * are not supported.
+ *
+ * @param <V> Type of values of this map
+ */
+public class IntObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    /**
+     * Values of the slots, <code>null</code> denotes a free slot
+     */
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of mappings the map should hold without having to grow
+     */
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int findSlot(int key) {
+        int i = slot(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Associates the value with the key, replacing any previous value
+     *
+     * @param key   the key
+     * @param value the value, must not be <code>null</code>
+     * @return the previous value or <code>null</code>, if the key was unmapped
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new NullPointerException("null values are not supported");
+        int i = findSlot(key);
+        V previous = (V) values[i];
+        keys[i] = key;
+        values[i] = value;
+        if (previous == null && (++size * 2) > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return previous;
+    }
+
+    /**
+     * @param key the key
+     * @return the value associated with the key or <code>null</code>, if the key is unmapped
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[findSlot(key)];
+    }
+
+    public boolean containsKey(int key) {
+        return values[findSlot(key)] != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = findSlot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.easy.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage for <code>int</code> values outside of the Java heap.  The arena hands out fixed-size segments from chunks
+ * of direct memory (see {@link ByteBuffer#allocateDirect(int)}) and never frees them individually; all of its memory
+ * is released when the arena itself becomes unreachable.  This suits data that is built once and then kept, such as
+ * the line numbers of a project, and keeps millions of small values from showing up as objects to the garbage
+ * collector.
+ * <p>
+ * A segment is identified by the address of its first value.  Segments never span two chunks, so their values are
+ * contiguous.  Instances are not thread-safe.
+ * </p>
+ *
+ * @see OffHeapIntList
+ */
+public final class OffHeapIntArena {
+    /**
+     * log2 of the number of values per chunk (4 MiB per chunk)
+     */
+    private static final int CHUNK_SHIFT = 20;
+    /**
+     * The largest segment that can be allocated, in values
+     */
+    public static final int MAX_SEGMENT_SIZE = 1 << CHUNK_SHIFT;
+    private static final int OFFSET_MASK = MAX_SEGMENT_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+
+    private final List<IntBuffer> chunks = new ArrayList<>();
+    /**
+     * Number of values already handed out from the last chunk
+     */
+    private int usedInLastChunk = MAX_SEGMENT_SIZE;
+
+    /**
+     * Reserves a segment of consecutive values, all initially <code>0</code>.
+     *
+     * @param size number of values, between 1 and {@link #MAX_SEGMENT_SIZE}
+     * @return the address of the first value of the segment
+     */
+    public int allocate(int size) {
+        if (size < 1 || size > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + MAX_SEGMENT_SIZE + ", got "
+                    + size);
+        }
+        if (MAX_SEGMENT_SIZE - usedInLastChunk < size) {
+            if (chunks.size() == MAX_CHUNKS) {
+                throw new IllegalStateException("Off-heap arena is full (" + reservedBytes() + " bytes)");
+            }
+            chunks.add(ByteBuffer.allocateDirect(MAX_SEGMENT_SIZE * 4).order(ByteOrder.nativeOrder()).asIntBuffer());
+            usedInLastChunk = 0;
+        }
+        int address = ((chunks.size() - 1) << CHUNK_SHIFT) | usedInLastChunk;
+        usedInLastChunk += size;
+        return address;
+    }
+
+    /**
+     * @param address address of a value, i.e., the address of a segment plus an index within that segment
+     * @return the value at that address
+     */
+    public int get(int address) {
+        return chunks.get(address >>> CHUNK_SHIFT).get(address & OFFSET_MASK);
+    }
+
+    /**
+     * @param address address of a value, i.e., the address of a segment plus an index within that segment
+     * @param value   the new value at that address
+     */
+    public void set(int address, int value) {
+        chunks.get(address >>> CHUNK_SHIFT).put(address & OFFSET_MASK, value);
+    }
+
+    /**
+     * Copies values between two segments of this arena.
+     *
+     * @param from   address of the first value to copy
+     * @param to     address of the first value to overwrite
+     * @param length number of values to copy
+     */
+    public void copy(int from, int to, int length) {
+        IntBuffer src = chunks.get(from >>> CHUNK_SHIFT);
+        IntBuffer dst = chunks.get(to >>> CHUNK_SHIFT);
+        int srcOffset = from & OFFSET_MASK;
+        int dstOffset = to & OFFSET_MASK;
+        for (int i = 0; i < length; i++) {
+            dst.put(dstOffset + i, src.get(srcOffset + i));
+        }
+    }
+
+    /**
+     * @return number of bytes of direct memory reserved by this arena so far
+     */
+    public long reservedBytes() {
+        return (long) chunks.size() * MAX_SEGMENT_SIZE * 4;
+    }
+}
@@ -0,0 +1,97 @@
+package com.easy.util;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A growable list of <code>int</code> values whose elements are kept in an {@link OffHeapIntArena}.  On the heap, the
+ * list only takes a few fields, no matter how many elements it has.  It implements <code>List&lt;Integer&gt;</code>
+ * so that it can replace an <code>ArrayList&lt;Integer&gt;</code>, but {@link #getInt(int)}, {@link #addInt(int)} and
+ * {@link #containsInt(int)} avoid boxing.
+ * <p>
+ * When the list grows, its elements are copied to a segment of twice the size.  The old segment is not reused, as
+ * the arena does not free memory.  Elements can only be appended, not removed, except by clearing the whole list.
+ * </p>
+ */
+public final class OffHeapIntList extends AbstractList<Integer> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final OffHeapIntArena arena;
+    private int address;
+    private int capacity;
+    private int size;
+
+    /**
+     * @param arena where to keep the elements
+     */
+    public OffHeapIntList(OffHeapIntArena arena) {
+        this.arena = arena;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    public int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return arena.get(address + index);
+    }
+
+    @Override
+    public Integer set(int index, Integer element) {
+        int previous = getInt(index);
+        arena.set(address + index, element);
+        return previous;
+    }
+
+    @Override
+    public boolean add(Integer element) {
+        addInt(element);
+        return true;
+    }
+
+    public void addInt(int value) {
+        if (size == capacity) grow();
+        arena.set(address + size, value);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return (o instanceof Integer) && containsInt((Integer) o);
+    }
+
+    public boolean containsInt(int value) {
+        for (int i = 0; i < size; i++) {
+            if (arena.get(address + i) == value) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    private void grow() {
+        if (capacity == OffHeapIntArena.MAX_SEGMENT_SIZE) {
+            throw new IllegalStateException("List cannot grow beyond " + capacity + " elements");
+        }
+        int newCapacity = (capacity == 0) ? INITIAL_CAPACITY
+                : Math.min(capacity * 2, OffHeapIntArena.MAX_SEGMENT_SIZE);
+        int newAddress = arena.allocate(newCapacity);
+        arena.copy(address, newAddress, size);
+        this.address = newAddress;
+        this.capacity = newCapacity;
+    }
+}
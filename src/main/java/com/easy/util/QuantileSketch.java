@@ -0,0 +1,187 @@
+package com.easy.util;
+
+import java.util.Arrays;
+
+/**
+ * Estimates quantiles of a stream of numbers in a single pass and bounded memory, using a KLL sketch (Karnin, Lang and
+ * Liberty, "Optimal Quantile Approximation in Streams", FOCS 2016).  Values are kept in a hierarchy of compactors:
+ * when a level fills up, it is sorted and every other value is promoted to the next level, where it stands for twice
+ * as many values.  As long as no level has been compacted, the quantiles are exact.
+ * <p>
+ * The rank error of a quantile shrinks in proportion to <code>1/k</code>; with the {@link #DEFAULT_K default} it is
+ * typically well below one percent of the number of values.  Compaction alternates between keeping the values at odd
+ * and at even positions instead of choosing randomly, so the same stream always yields the same quantiles.
+ * </p>
+ */
+public class QuantileSketch {
+    /**
+     * Default capacity of the top compactor
+     */
+    public static final int DEFAULT_K = 200;
+    /**
+     * Factor by which the capacity of a compactor shrinks per level below the top
+     */
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int k;
+    /**
+     * <code>levels[h][0..sizes[h])</code> are the values of level <code>h</code>, each standing for <code>2^h</code>
+     * values of the stream
+     */
+    private double[][] levels = new double[0][];
+    private int[] sizes = new int[0];
+    /**
+     * Whether the next compaction of a level keeps the values at odd positions
+     */
+    private boolean[] keepOdd = new boolean[0];
+    private int retained = 0;
+    private int maxRetained = 0;
+    private long count = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * @param k capacity of the top compactor, at least 8; larger values are more accurate and use more memory
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) throw new IllegalArgumentException("k must be at least 8, got " + k);
+        this.k = k;
+        grow();
+    }
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Adds a value to the stream.
+     *
+     * @param value the value, not NaN
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) throw new IllegalArgumentException("Cannot add NaN");
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        append(0, value);
+        retained++;
+        count++;
+        if (retained >= maxRetained) compress();
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Estimates a quantile, using the nearest-rank definition: the smallest value such that at least the fraction
+     * <code>q</code> of all values are less than or equal to it.
+     *
+     * @param q the quantile, between 0 and 1
+     * @return the estimated quantile; the minimum for <code>q = 0</code>, the maximum for <code>q = 1</code>
+     * @throws IllegalStateException if no values have been added
+     */
+    public double quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0)) throw new IllegalArgumentException("Quantile must be between 0 and 1, got " + q);
+        if (count == 0) throw new IllegalStateException("No values have been added");
+        if (q == 0.0) return min;
+        if (q == 1.0) return max;
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+        sortByValue(values, weights);
+        final long targetRank = Math.max(1L, (long) Math.ceil(q * count));
+        long rank = 0;
+        for (int i = 0; i < n; i++) {
+            rank += weights[i];
+            if (rank >= targetRank) return values[i];
+        }
+        return max;
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels[level];
+        if (sizes[level] == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels[level] = items;
+        }
+        items[sizes[level]++] = value;
+    }
+
+    private int capacity(int level) {
+        final int height = levels.length - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_DECAY, height) * k) + 1;
+    }
+
+    private void grow() {
+        final int h = levels.length;
+        levels = Arrays.copyOf(levels, h + 1);
+        levels[h] = new double[16];
+        sizes = Arrays.copyOf(sizes, h + 1);
+        keepOdd = Arrays.copyOf(keepOdd, h + 1);
+        maxRetained = 0;
+        for (int level = 0; level <= h; level++) {
+            maxRetained += capacity(level);
+        }
+    }
+
+    /**
+     * Compacts the lowest level that has reached its capacity.  If the level holds an odd number of values, its
+     * smallest value stays behind.
+     */
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            final int n = sizes[h];
+            if (n < capacity(h)) continue;
+            if (h + 1 == levels.length) grow();
+            final double[] items = levels[h];
+            Arrays.sort(items, 0, n);
+            final int remaining = n & 1;
+            final int first = remaining + (keepOdd[h] ? 1 : 0);
+            keepOdd[h] = !keepOdd[h];
+            for (int i = first; i < n; i += 2) {
+                append(h + 1, items[i]);
+            }
+            sizes[h] = remaining;
+            retained = 0;
+            for (int size : sizes) {
+                retained += size;
+            }
+            return;
+        }
+    }
+
+    private static void sortByValue(double[] values, long[] weights) {
+        final int n = values.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] sortedValues = new double[n];
+        long[] sortedWeights = new long[n];
+        for (int i = 0; i < n; i++) {
+            sortedValues[i] = values[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, n);
+        System.arraycopy(sortedWeights, 0, weights, 0, n);
+    }
+}
@@ -0,0 +1,179 @@
+package com.easy.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Classifies the lines of a C source file as either code or empty in a single pass over its bytes.  A line is empty if
+ * it contains nothing but whitespace and comments.  Comments may start or end anywhere within a line, and comment
+ * delimiters inside string and character literals are ignored.
+ * <p>
+ * The file is read through a {@link FileChannel} into a per-thread buffer, so scanning many files, even concurrently,
+ * allocates little more than the resulting {@link BitSet}s.  Line breaks are <code>\n</code>, <code>\r\n</code> or
+ * <code>\r</code>, as for {@link java.io.BufferedReader#readLine()}.
+ * </p>
+ */
+public class SourceLineScanner {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    /**
+     * Result of scanning a file
+     */
+    public static final class Lines {
+        /**
+         * Indices of the empty lines, counting from 0
+         */
+        public final BitSet emptyLines;
+        /**
+         * Number of lines that are not empty
+         */
+        public final int codeLines;
+        /**
+         * Total number of lines
+         */
+        public final int lines;
+
+        Lines(BitSet emptyLines, int codeLines, int lines) {
+            this.emptyLines = emptyLines;
+            this.codeLines = codeLines;
+            this.lines = lines;
+        }
+    }
+
+    private final BitSet emptyLines = new BitSet();
+    private int line = 0;
+    private int codeLines = 0;
+    private boolean lineStarted = false;
+    private boolean lineHasCode = false;
+    private boolean inLineComment = false;
+    private boolean inBlockComment = false;
+    /**
+     * The quote character of the string or character literal we are in, or 0 if we are not in one
+     */
+    private byte inLiteral = 0;
+    private boolean escape = false;
+    /**
+     * A <code>/</code> that may start a comment
+     */
+    private boolean pendingSlash = false;
+    /**
+     * A <code>*</code> inside a block comment that may end it
+     */
+    private boolean pendingStar = false;
+    /**
+     * A <code>\r</code> that may be followed by <code>\n</code>
+     */
+    private boolean pendingCr = false;
+
+    private SourceLineScanner() {
+    }
+
+    /**
+     * Scans the given file.
+     *
+     * @param file the file to scan
+     * @return the classified lines
+     * @throws IOException if the file cannot be read
+     */
+    public static Lines scan(Path file) throws IOException {
+        SourceLineScanner scanner = new SourceLineScanner();
+        ByteBuffer buf = BUFFERS.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf.clear();
+            while (channel.read(buf) >= 0) {
+                buf.flip();
+                scanner.feed(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+                buf.clear();
+            }
+        }
+        return scanner.finish();
+    }
+
+    /**
+     * Scans the given bytes as the contents of a whole file.
+     *
+     * @param contents the contents of a file
+     * @return the classified lines
+     */
+    public static Lines scan(byte[] contents) {
+        SourceLineScanner scanner = new SourceLineScanner();
+        scanner.feed(contents, 0, contents.length);
+        return scanner.finish();
+    }
+
+    private void feed(byte[] bytes, int offset, int length) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final byte b = bytes[i];
+            if (pendingCr) {
+                pendingCr = false;
+                if (b == '\n') continue;
+            }
+            if (b == '\n' || b == '\r') {
+                endLine();
+                pendingCr = (b == '\r');
+                continue;
+            }
+            lineStarted = true;
+            if (inLineComment) continue;
+            if (inBlockComment) {
+                if (pendingStar && b == '/') {
+                    inBlockComment = false;
+                    pendingStar = false;
+                } else {
+                    pendingStar = (b == '*');
+                }
+                continue;
+            }
+            if (inLiteral != 0) {
+                if (escape) escape = false;
+                else if (b == '\\') escape = true;
+                else if (b == inLiteral) inLiteral = 0;
+                continue;
+            }
+            if (pendingSlash) {
+                pendingSlash = false;
+                if (b == '/') {
+                    inLineComment = true;
+                    continue;
+                }
+                if (b == '*') {
+                    inBlockComment = true;
+                    continue;
+                }
+                // it was a division
+                lineHasCode = true;
+            }
+            if (b == '/') {
+                pendingSlash = true;
+            } else if ((b & 0xff) > ' ') {
+                lineHasCode = true;
+                if (b == '"' || b == '\'') inLiteral = b;
+            }
+        }
+    }
+
+    private void endLine() {
+        if (pendingSlash) lineHasCode = true;
+        if (lineHasCode) codeLines++;
+        else emptyLines.set(line);
+        line++;
+        lineStarted = false;
+        lineHasCode = false;
+        inLineComment = false;
+        inLiteral = 0;
+        escape = false;
+        pendingSlash = false;
+        pendingStar = false;
+    }
+
+    private Lines finish() {
+        if (lineStarted) endLine();
+        return new Lines(emptyLines, codeLines, line);
+    }
+}
@@ -0,0 +1,123 @@
+package com.easy.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans source files with {@link SourceLineScanner} on a fixed number of background threads, ahead of the time their
+ * results are needed.  Paths are queued with {@link #prefetch(String)} in the order they will be needed; {@link
+ * #take(String)} then returns the result of a path, waiting only if it has not been scanned yet.  This way, reading
+ * many small files overlaps instead of each read waiting for the previous one.
+ * <p>
+ * At most {@link #getCapacity()} files are queued at any time, so that callers look ahead only a bounded number of
+ * files and the results waiting to be taken stay small.  Queuing and taking must happen on the same thread.
+ * </p>
+ */
+public class SourceScanPrefetcher implements AutoCloseable {
+    /**
+     * Default number of I/O threads.  Scanning is mostly waiting for the disk, so this may well exceed the number of
+     * cores.
+     */
+    public static final int DEFAULT_THREADS = Math.max(4, Math.min(16, 2 * Runtime.getRuntime().availableProcessors()));
+    /**
+     * Default number of files that may be queued per I/O thread
+     */
+    public static final int DEFAULT_FILES_PER_THREAD = 4;
+
+    private final ExecutorService pool;
+    private final int capacity;
+    private final Map<String, Future<SourceLineScanner.Lines>> pending = new HashMap<>();
+
+    /**
+     * @param threads  number of I/O threads, at least 1
+     * @param capacity maximum number of files queued at the same time, at least 1
+     */
+    public SourceScanPrefetcher(int threads, int capacity) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        if (capacity < 1) throw new IllegalArgumentException("Need a capacity of at least one file, got " + capacity);
+        this.capacity = capacity;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "skunk-prefetch-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.pool = Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    public SourceScanPrefetcher() {
+        this(DEFAULT_THREADS, DEFAULT_THREADS * DEFAULT_FILES_PER_THREAD);
+    }
+
+    /**
+     * @return the maximum number of files queued at the same time
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return <code>true</code> if no more files can be queued until one is taken
+     */
+    public boolean isFull() {
+        return pending.size() >= capacity;
+    }
+
+    /**
+     * Queues a file for scanning unless it is already queued or the queue is full.
+     *
+     * @param path the path of the file, as it will later be passed to {@link #take(String)}
+     * @return <code>true</code> if the file is queued, <code>false</code> if the queue is full
+     */
+    public boolean prefetch(String path) {
+        if (pending.containsKey(path)) return true;
+        if (isFull()) return false;
+        pending.put(path, pool.submit(() -> SourceLineScanner.scan(Paths.get(path))));
+        return true;
+    }
+
+    /**
+     * Returns the result of scanning a queued file and forgets about it.
+     *
+     * @param path the path passed to {@link #prefetch(String)}
+     * @return the scan result, or <code>null</code> if the file was not queued
+     * @throws IOException if the file could not be read
+     */
+    public SourceLineScanner.Lines take(String path) throws IOException {
+        Future<SourceLineScanner.Lines> f = pending.remove(path);
+        if (f == null) return null;
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + path + " to be scanned");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException("Error scanning " + path, cause);
+        }
+    }
+
+    /**
+     * Stops the I/O threads, discarding files that were queued but not taken.
+     */
+    @Override
+    public void close() {
+        for (Future<?> f : pending.values()) {
+            f.cancel(true);
+        }
+        pending.clear();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.easy.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A table of distinct strings.  Canonicalizing equal strings always yields the same {@link String} instance, so that
+ * strings which occur many times, such as file paths and feature names, are only kept in memory once.
+ */
+public class StringPool {
+    private final Map<String, String> canonicalStrings = new HashMap<>();
+
+    /**
+     * @param s a string or <code>null</code>
+     * @return the pooled instance equal to the given string (adding it to the pool if necessary) or <code>null</code>,
+     * if the argument was <code>null</code>
+     */
+    public String canonical(String s) {
+        if (s == null) return null;
+        String existing = canonicalStrings.putIfAbsent(s, s);
+        return (existing == null) ? s : existing;
+    }
+}
@@ -0,0 +1,93 @@
+package com.easy.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the <code>k</code> items with the highest scores among all items offered to it, using a bounded heap.  Offering
+ * <code>n</code> items takes <code>O(n log k)</code> time and <code>O(k)</code> memory, instead of collecting and
+ * sorting all of them.
+ * <p>
+ * Items with equal scores are ranked in the order they were offered, i.e., the result is the same as the first
+ * <code>k</code> items of a stable sort by descending score.
+ * </p>
+ *
+ * @param <T> type of the items
+ */
+public class TopK<T> {
+    private static final class Entry<T> {
+        final float score;
+        final long seq;
+        final T item;
+
+        Entry(float score, long seq, T item) {
+            this.score = score;
+            this.seq = seq;
+            this.item = item;
+        }
+    }
+
+    private final int k;
+    /**
+     * Head is the entry that would be dropped first: lowest score, and among equal scores, the one offered last.
+     */
+    private final PriorityQueue<Entry<T>> heap;
+    private long seq = 0;
+
+    /**
+     * @param k the maximum number of items to keep, at least 1
+     */
+    public TopK(int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1, got " + k);
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.min(k, 1024), TopK::compareWorstFirst);
+    }
+
+    private static int compareWorstFirst(Entry<?> a, Entry<?> b) {
+        int r = Float.compare(a.score, b.score);
+        if (r != 0) return r;
+        return Long.compare(b.seq, a.seq);
+    }
+
+    /**
+     * Offers an item.
+     *
+     * @param score the score of the item
+     * @param item  the item
+     * @return <code>true</code> if the item is (for now) among the top <code>k</code>
+     */
+    public boolean offer(float score, T item) {
+        final long s = seq++;
+        if (heap.size() < k) {
+            heap.add(new Entry<>(score, s, item));
+            return true;
+        }
+        // a later item only displaces the worst one if its score is strictly higher
+        if (Float.compare(score, heap.peek().score) <= 0) return false;
+        heap.poll();
+        heap.add(new Entry<>(score, s, item));
+        return true;
+    }
+
+    /**
+     * @return number of items currently kept
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * @return the kept items, highest score first
+     */
+    public List<T> toSortedList() {
+        List<Entry<T>> entries = new ArrayList<>(heap);
+        Collections.sort(entries, Collections.reverseOrder(TopK::compareWorstFirst));
+        List<T> result = new ArrayList<>(entries.size());
+        for (Entry<T> e : entries) {
+            result.add(e.item);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.easy.detection.data;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class FileTest {
+
+    @DataProvider
+    public Object[][] emptyLinePatterns() {
+        Random random = new Random(7);
+        boolean[] mixed = new boolean[200];
+        for (int i = 0; i < mixed.length; i++) {
+            mixed[i] = random.nextInt(3) == 0;
+        }
+        // empty lines right at the start and end of the file and around the word boundaries of the bit set
+        mixed[0] = true;
+        mixed[63] = true;
+        mixed[64] = true;
+        mixed[mixed.length - 1] = true;
+        boolean[] allEmpty = new boolean[130];
+        Arrays.fill(allEmpty, true);
+        return new Object[][]{{mixed}, {allEmpty}, {new boolean[70]}, {new boolean[]{true}}};
+    }
+
+    @Test(dataProvider = "emptyLinePatterns")
+    public void testCountEmptyLinesMatchesNaiveCount(boolean[] empty) throws Exception {
+        File file = newFile(empty);
+        for (int line = 0; line < empty.length; line++) {
+            Assert.assertEquals(file.IsEmptyLine(line), empty[line], "line " + line);
+        }
+        final int last = empty.length - 1;
+        for (int from = -2; from <= last + 66; from++) {
+            for (int to = from - 2; to <= last + 66; to++) {
+                Assert.assertEquals(file.CountEmptyLines(from, to), naiveCount(empty, from, to),
+                        "lines " + from + " to " + to);
+            }
+        }
+        // the first and the last line on their own
+        Assert.assertEquals(file.CountEmptyLines(0, 0), empty[0] ? 1 : 0);
+        Assert.assertEquals(file.CountEmptyLines(last, last), empty[last] ? 1 : 0);
+    }
+
+    @Test
+    public void testNoEmptyLinesAfterDropping() throws Exception {
+        File file = newFile(new boolean[]{true, false, true});
+        Assert.assertEquals(file.CountEmptyLines(0, 2), 2);
+        file.DropEmptyLines();
+        Assert.assertEquals(file.CountEmptyLines(0, 2), 0);
+        Assert.assertFalse(file.IsEmptyLine(0));
+    }
+
+    private static int naiveCount(boolean[] empty, int from, int to) {
+        int count = 0;
+        for (int line = Math.max(0, from); line <= to && line < empty.length; line++) {
+            if (empty[line]) count++;
+        }
+        return count;
+    }
+
+    private static File newFile(boolean[] empty) throws Exception {
+        Path source = Files.createTempFile("lines", ".c");
+        source.toFile().deleteOnExit();
+        List<String> content = new ArrayList<>();
+        for (int i = 0; i < empty.length; i++) {
+            if (empty[i]) content.add((i % 2 == 0) ? "" : "  // comment " + i);
+            else content.add("x = " + i + ";");
+        }
+        Files.write(source, content);
+        return new File(null, source.toString());
+    }
+}
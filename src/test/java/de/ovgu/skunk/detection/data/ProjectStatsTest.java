@@ -0,0 +1,42 @@
+package com.easy.detection.data;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ProjectStatsTest {
+
+    @Test
+    public void testDistributionOfOddNumberOfValues() {
+        ProjectStats.Distribution d = new ProjectStats.Distribution(new int[]{9, 1, 5, 3, 7});
+        Assert.assertEquals(d.GetCount(), 5);
+        Assert.assertEquals(d.GetSum(), 25L);
+        Assert.assertEquals(d.GetMin(), 1);
+        Assert.assertEquals(d.GetMax(), 9);
+        Assert.assertEquals(d.GetMean(), 5.0);
+        Assert.assertEquals(d.GetMedian(), 5.0);
+        Assert.assertEquals(d.GetPercentile(0.0), 1.0);
+        Assert.assertEquals(d.GetPercentile(25.0), 3.0);
+        Assert.assertEquals(d.GetPercentile(100.0), 9.0);
+    }
+
+    @Test
+    public void testPercentilesInterpolateBetweenRanks() {
+        ProjectStats.Distribution d = new ProjectStats.Distribution(new int[]{4, 1, 2, 3});
+        Assert.assertEquals(d.GetMedian(), 2.5);
+        Assert.assertEquals(d.GetPercentile(90.0), 3.7, 1e-9);
+    }
+
+    @Test
+    public void testEmptyDistribution() {
+        ProjectStats.Distribution d = new ProjectStats.Distribution(new int[0]);
+        Assert.assertEquals(d.GetCount(), 0);
+        Assert.assertEquals(d.GetMedian(), 0.0);
+        Assert.assertEquals(d.GetMean(), 0.0);
+        Assert.assertEquals(d.GetMax(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new ProjectStats.Distribution(new int[]{1}).GetPercentile(101.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.easy.detection.detector;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class DetectionConfigTest {
+
+    @Test
+    public void testParsesValuesAndModifiers() throws DetectionConfigException {
+        DetectionConfig config = new DetectionConfig("dir/Test.csm", Arrays.asList(
+                "# comment",
+                "",
+                "Method_LoacToLocRatio=0.5;mandatory",
+                "  Method_NestingSum=3;2.5",
+                "File_NegationCount=4;mandatory;0.5",
+                "Feature_NumberLofc=100;2",
+                "Feature_NumberNofc=p90;mandatory"));
+        Assert.assertEquals(config.type, "Test.csm");
+        Assert.assertEquals(config.Method_LoacToLocRatio, 0.5);
+        Assert.assertTrue(config.Method_LoacToLocRatio_Mand);
+        Assert.assertEquals(config.Method_LoacToLocRatio_Weight, 1f);
+        Assert.assertEquals(config.Method_NestingSum, 3);
+        Assert.assertFalse(config.Method_NestingSum_Mand);
+        Assert.assertEquals(config.Method_NestingSum_Weight, 2.5f);
+        Assert.assertEquals(config.File_NegationCount, 4);
+        Assert.assertTrue(config.File_NegationCount_Mand);
+        Assert.assertEquals(config.File_NegationCount_Weight, 0.5f);
+        Assert.assertEquals(config.Feature_NumberLofc, 100.0);
+        Assert.assertEquals(config.Feature_NumberLofc_Weight, 2f);
+        Assert.assertTrue(config.hasPercentileThresholds());
+        Assert.assertEquals(config.Feature_NumberNofc, -1.0);
+        Assert.assertTrue(config.Feature_NumberNofc_Mand);
+        // untouched thresholds keep their defaults
+        Assert.assertTrue(Double.isNaN(config.File_LoacToLocRatio));
+        Assert.assertEquals(config.File_LoacToLocRatio_Weight, -1f);
+    }
+
+    @Test
+    public void testReportsAllErrors() {
+        try {
+            new DetectionConfig("Broken.csm", Arrays.asList(
+                    "Method_NestingSum=1.5",
+                    "Method_NestingSum=2",
+                    "No_Such_Threshold=1",
+                    "File_LoacToLocRatio=half",
+                    "Method_NegationCount",
+                    "Feature_NumberLofc=2;often",
+                    "Feature_NumberNofc=p101"));
+            Assert.fail("expected an exception");
+        } catch (DetectionConfigException e) {
+            Assert.assertEquals(e.getErrors().size(), 6);
+            Assert.assertTrue(e.getErrors().get(0).startsWith("line 1: "));
+            Assert.assertTrue(e.getErrors().get(1).startsWith("line 3: "));
+            Assert.assertTrue(e.getErrors().get(5).startsWith("line 7: "));
+            Assert.assertTrue(e.getMessage().contains("No_Such_Threshold"));
+        }
+    }
+
+    @Test
+    public void testPercentilesIgnoreUnannotatedEntities() throws Exception {
+        DetectionConfig config = new DetectionConfig("Percentiles.csm", Arrays.asList(
+                "File_NestingSum=p0",
+                "File_NumberOfFeatureConstants=p100"));
+        Context ctx = new Context(config);
+        // nesting sums 3 and 1
+        File a = newFile(ctx);
+        addReferences(ctx, a, 0, 1, 2);
+        File b = newFile(ctx);
+        addReferences(ctx, b, 0, 1);
+        // unannotated files, whose nesting sum of 0 must not count
+        for (int i = 0; i < 3; i++) newFile(ctx);
+
+        config.resolvePercentileThresholds(ctx);
+
+        Assert.assertEquals(config.File_NestingSum, 1);
+        Assert.assertEquals(config.File_NumberOfFeatureConstants, 3);
+    }
+
+    private static File newFile(Context ctx) throws Exception {
+        Path source = Files.createTempFile("percentiles", ".c");
+        source.toFile().deleteOnExit();
+        Files.write(source, Arrays.asList("a;", "b;", "c;", "d;"));
+        return ctx.files.InternFile(source.toString());
+    }
+
+    private static void addReferences(Context ctx, File file, int... nestingDepths) {
+        for (int depth : nestingDepths) {
+            FeatureReference ref = new FeatureReference(file.filePath, 1, 4 - depth, depth, false);
+            ctx.featureExpressions.InternFeature("F" + depth).AddReference(ref, file);
+            file.AddFeatureConstant(ref);
+        }
+    }
+}
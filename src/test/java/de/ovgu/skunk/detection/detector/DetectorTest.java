@@ -0,0 +1,58 @@
+package com.easy.detection.detector;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.Feature;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class DetectorTest {
+
+    @Test
+    public void testNestingBundlesAreIndependent() throws Exception {
+        Path source = Files.createTempFile("nesting", ".c");
+        source.toFile().deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) lines.add("x = " + i + ";");
+        Files.write(source, lines);
+
+        Context ctx = new Context(new DetectionConfig("Nesting.csm", Arrays.asList("File_NestingDepthMin=2")));
+        File file = ctx.files.InternFile(source.toString());
+        // #if A ... #if B ... #endif ... #endif: nesting depth 1, not smelly
+        FeatureReference a = addReference(ctx, file, "A", 1, 4, 0, null);
+        FeatureReference b = addReference(ctx, file, "B", 2, 3, 1, a);
+        // #if C ... #if D ... #if E: nesting depth 2, smelly
+        FeatureReference c = addReference(ctx, file, "C", 6, 12, 0, null);
+        FeatureReference d = addReference(ctx, file, "D", 7, 11, 1, c);
+        FeatureReference e = addReference(ctx, file, "E", 8, 10, 2, d);
+
+        Map<FeatureReference, List<SmellReason>> result = new Detector(ctx).Perform();
+
+        // The stack-based check used to report A, B, D and E instead: the first bundle absorbed D and E, and C was
+        // skipped.
+        Assert.assertFalse(result.containsKey(a));
+        Assert.assertFalse(result.containsKey(b));
+        for (FeatureReference ref : Arrays.asList(c, d, e)) {
+            Assert.assertEquals(result.get(ref), Arrays.asList(SmellReason.ANNOTATIONFILE_NUMBERNESTINGDEPTHMIN),
+                    ref.toString());
+        }
+    }
+
+    private static FeatureReference addReference(Context ctx, File file, String feature, int start, int end,
+                                                 int nestingDepth, FeatureReference parent) {
+        FeatureReference ref = new FeatureReference(file.filePath, start, end, nestingDepth, false);
+        Feature feat = ctx.featureExpressions.InternFeature(feature);
+        feat.AddReference(ref, file);
+        ref.SetParent(parent);
+        file.AddFeatureConstant(ref);
+        return ref;
+    }
+}
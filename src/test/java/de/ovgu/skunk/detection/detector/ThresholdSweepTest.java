@@ -0,0 +1,184 @@
+package com.easy.detection.detector;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.Feature;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import com.easy.detection.data.FilePath;
+import com.easy.detection.data.Method;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class ThresholdSweepTest {
+
+    @Test
+    public void testSweepMatchesDetector() throws Exception {
+        Context ctx = newRandomProject(new Random(42));
+        ThresholdSweep sweep = new ThresholdSweep(ctx);
+        for (ThresholdSweep.Metric metric : ThresholdSweep.Metric.values()) {
+            if (metric.reason == null) continue;
+            for (double t : thresholdsAroundValues(ctx, metric)) {
+                String value = isRatio(metric) ? String.valueOf(t) : String.valueOf((int) t);
+                Context withThreshold = ctx.withConfig(
+                        new DetectionConfig("Sweep.csm", Arrays.asList(metric.name() + "=" + value)));
+                long reported = 0;
+                for (List<SmellReason> reasons : new Detector(withThreshold).Perform().values()) {
+                    if (reasons.contains(metric.reason)) reported++;
+                }
+                ThresholdSweep.Result r = sweep.Sweep(metric, new double[]{t}).get(0);
+                Assert.assertEquals(r.smellyFeatureConstantReferences, reported, metric + "=" + value);
+            }
+        }
+    }
+
+    @Test
+    public void testExclusiveRatioWithoutReferences() throws Exception {
+        Context ctx = new Context(null);
+        newFile(ctx, 10);
+        ctx.featureExpressions.InternFeature("A");
+        // the detector checks nofc > 0 * threshold, which never holds for a feature without references
+        ThresholdSweep.Result r = new ThresholdSweep(ctx).Sweep(ThresholdSweep.Metric.Feature_NoFeatureConstantsRatio,
+                new double[]{0, 0.5}).get(1);
+        Assert.assertEquals(r.smellyEntities, 0);
+        Assert.assertEquals(r.smellyFeatureConstantReferences, 0);
+    }
+
+    @Test
+    public void testSweepReadsSmellScoresOfDetection() throws Exception {
+        Context ctx = new Context(new DetectionConfig("Scores.csm", Arrays.asList("File_NestingSum=1")));
+        File annotated = newFile(ctx, 20);
+        File plain = newFile(ctx, 10);
+        FeatureReference a = addReference(ctx, annotated, "A", 1, 8, 0, null);
+        addReference(ctx, annotated, "B", 2, 6, 1, a);
+        addReference(ctx, annotated, "A", 12, 15, 0, null);
+        new Detector(ctx).Perform();
+
+        final float score = annotated.GetAFSmell(ctx);
+        // without feature constants, the score is 0/0 and the file is left out of the sweep
+        Assert.assertTrue(Float.isNaN(plain.GetAFSmell(ctx)));
+        List<ThresholdSweep.Result> results = new ThresholdSweep(ctx).Sweep(ThresholdSweep.Metric.File_AFSmell,
+                new double[]{-Double.MAX_VALUE, score, Math.nextUp(score)});
+        Assert.assertEquals(results.get(0).smellyEntities, 1);
+        Assert.assertEquals(results.get(1).smellyEntities, 1);
+        Assert.assertEquals(results.get(1).smellyFeatureConstantReferences, 3);
+        Assert.assertEquals(results.get(2).smellyEntities, 0);
+    }
+
+    private static boolean isRatio(ThresholdSweep.Metric metric) {
+        return metric.name().endsWith("Ratio");
+    }
+
+    /**
+     * @return the values of the metric for amounts, where the detector's comparison is exact, and the midpoints
+     * between them for ratios, which the detector compares as products, plus thresholds below and above all values
+     */
+    private static List<Double> thresholdsAroundValues(Context ctx, ThresholdSweep.Metric metric) {
+        TreeSet<Double> values = new TreeSet<>();
+        metric.collect(ctx, (v, numReferences, entity) -> {
+            if (!Double.isInfinite(v)) values.add(v);
+        });
+        List<Double> thresholds = new ArrayList<>();
+        thresholds.add(0.0);
+        Double previous = null;
+        for (double v : values) {
+            if (!isRatio(metric)) {
+                if (v > 0) thresholds.add(v);
+            } else if (previous != null) {
+                thresholds.add((previous + v) / 2);
+            }
+            previous = v;
+        }
+        thresholds.add(values.last() + 1);
+        return thresholds;
+    }
+
+    /**
+     * Creates files with blank lines, functions and nested feature constant references, and one file without any
+     */
+    private static Context newRandomProject(Random random) throws Exception {
+        Context ctx = new Context(null);
+        for (int i = 0; i < 5; i++) {
+            File file = newFile(ctx, 80, random);
+            FilePath fp = ctx.internFilePath(file.filePath);
+            List<Method> methods = new ArrayList<>();
+            for (int[] range : new int[][]{{10, 29}, {35, 54}, {60, 75}, {77, 79}}) {
+                Method meth = new Method(ctx, "int f" + range[0] + "(int x)", file.filePath, range[0],
+                        range[1] - range[0] + 1, 1, "");
+                ctx.functions.AddFunctionToFile(fp, meth);
+                ctx.files.InternFunctionIntoExistingFile(fp, meth);
+                methods.add(meth);
+            }
+            int start = 1 + random.nextInt(5);
+            while (start < 70) {
+                int end = Math.min(80, start + 3 + random.nextInt(15));
+                addReferences(ctx, file, methods, random, start, end, 0, null);
+                start = end + 1 + random.nextInt(6);
+            }
+        }
+        newFile(ctx, 30, random);
+        ctx.featureExpressions.InternFeature("UNREFERENCED");
+        // as done by the readers
+        for (File file : ctx.files.AllFiles()) ctx.featureExpressions.AddLoc(file.loc);
+        ctx.featureExpressions.PostAction();
+        ctx.functions.PostAction();
+        return ctx;
+    }
+
+    private static void addReferences(Context ctx, File file, List<Method> methods, Random random, int start,
+                                      int end, int nestingDepth, FeatureReference parent) {
+        FeatureReference ref = new FeatureReference(file.filePath, start, end, nestingDepth, random.nextInt(4) == 0);
+        Feature feat = ctx.featureExpressions.InternFeature(String.valueOf((char) ('A' + random.nextInt(8))));
+        feat.AddReference(ref, file);
+        ref.SetParent(parent);
+        file.AddFeatureConstant(ref);
+        for (Method meth : methods) {
+            if (start >= meth.start1 && start <= meth.end1) meth.AddFeatureConstant(ref);
+        }
+        int childStart = start + 1;
+        while (nestingDepth < 3 && end - 1 - childStart >= 2 && random.nextBoolean()) {
+            int childEnd = childStart + 2 + random.nextInt(end - 1 - childStart - 1);
+            addReferences(ctx, file, methods, random, childStart, childEnd, nestingDepth + 1, ref);
+            childStart = childEnd + 1;
+        }
+    }
+
+    private static File newFile(Context ctx, int lines, Random random) throws Exception {
+        Path source = Files.createTempFile("sweep", ".c");
+        source.toFile().deleteOnExit();
+        List<String> content = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            boolean blank = (i >= 77 && i <= 79) || random.nextInt(6) == 0;
+            content.add(blank ? "" : "x = " + i + ";");
+        }
+        Files.write(source, content);
+        return ctx.files.InternFile(source.toString());
+    }
+
+    private static File newFile(Context ctx, int lines) throws Exception {
+        Path source = Files.createTempFile("sweep", ".c");
+        source.toFile().deleteOnExit();
+        List<String> content = new ArrayList<>();
+        for (int i = 0; i < lines; i++) content.add("x = " + i + ";");
+        Files.write(source, content);
+        return ctx.files.InternFile(source.toString());
+    }
+
+    private static FeatureReference addReference(Context ctx, File file, String feature, int start, int end,
+                                                 int nestingDepth, FeatureReference parent) {
+        FeatureReference ref = new FeatureReference(file.filePath, start, end, nestingDepth, false);
+        Feature feat = ctx.featureExpressions.InternFeature(feature);
+        feat.AddReference(ref, file);
+        ref.SetParent(parent);
+        file.AddFeatureConstant(ref);
+        return ref;
+    }
+}
@@ -0,0 +1,78 @@
+package com.easy.detection.logging;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class MetricsTest {
+
+    @Test
+    public void testPercentilesAreBucketUpperBounds() {
+        Metrics.Histogram h = new Metrics.Histogram();
+        Assert.assertEquals(h.percentile(50), 0L);
+        for (int v = 1; v <= 100; v++) {
+            h.record(v);
+        }
+        Assert.assertEquals(h.getCount(), 100L);
+        Assert.assertEquals(h.percentile(0), 1L);
+        // the 50th value lies in the bucket [32, 63]
+        Assert.assertEquals(h.percentile(50), 63L);
+        // the 90th value lies in the bucket [64, 127], which is capped at the maximum
+        Assert.assertEquals(h.percentile(90), 100L);
+        Assert.assertEquals(h.percentile(100), 100L);
+    }
+
+    @Test
+    public void testKeepsTenLargestLabelledValues() {
+        List<Integer> values = new ArrayList<>();
+        for (int v = 0; v < 30; v++) values.add(v);
+        Collections.shuffle(values, new Random(3));
+        Metrics.Histogram h = new Metrics.Histogram();
+        for (int v : values) {
+            h.record(v, "f" + v);
+        }
+        // unlabelled values count, but are not listed
+        h.record(1000);
+
+        StringBuilder json = new StringBuilder();
+        h.appendJson(json);
+        StringBuilder largest = new StringBuilder();
+        for (int v = 29; v >= 20; v--) {
+            if (v < 29) largest.append(", ");
+            largest.append("{\"value\": ").append(v).append(", \"label\": \"f").append(v).append("\"}");
+        }
+        Assert.assertTrue(json.toString().endsWith("\"largest\": [" + largest + "]}"), json.toString());
+        Assert.assertTrue(json.toString().startsWith("{\"count\": 31, "), json.toString());
+    }
+
+    @Test
+    public void testJson() {
+        Metrics metrics = new Metrics();
+        metrics.counter("b.count").add(2);
+        metrics.counter("a.count").increment();
+        Metrics.Histogram h = metrics.histogram("h");
+        h.record(5, "a");
+        h.record(1, "b");
+        h.record(300, "c");
+
+        String json = metrics.toJson();
+        Assert.assertTrue(json.contains("\"counters\": {\n    \"a.count\": 1,\n    \"b.count\": 2,\n"), json);
+        Assert.assertTrue(json.contains("\"h\": {\"count\": 3, \"sum\": 306, \"min\": 1, \"max\": 300, \"mean\": 102,"
+                + " \"p50\": 7, \"p90\": 300, \"p99\": 300, \"largest\": [{\"value\": 300, \"label\": \"c\"},"
+                + " {\"value\": 5, \"label\": \"a\"}, {\"value\": 1, \"label\": \"b\"}]}"), json);
+    }
+
+    @Test
+    public void testDocumentedMetricsAreListedBeforeFirstUse() {
+        String json = new Metrics().toJson();
+        for (String name : Metrics.COUNTER_NAMES) {
+            Assert.assertTrue(json.contains("    \"" + name + "\": 0"), json);
+        }
+        Assert.assertTrue(json.contains("\"" + Metrics.SIGNATURE_PARSE_FAILURES + "\": 0"), json);
+        Assert.assertTrue(json.contains("    \"" + Metrics.FILE_PARSE_MICROS + "\": {\"count\": 0, "), json);
+    }
+}
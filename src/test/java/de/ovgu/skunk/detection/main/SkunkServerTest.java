@@ -0,0 +1,120 @@
+package com.easy.detection.main;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.Feature;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SkunkServerTest {
+    private HttpServer server;
+    private String baseUrl;
+    private String projectName;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        Path source = Files.createTempFile("server", ".c");
+        source.toFile().deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 12; i++) lines.add("x = " + i + ";");
+        Files.write(source, lines);
+        Path dir = Files.createTempDirectory("processed");
+        projectName = dir.toFile().getCanonicalFile().getName();
+
+        Context ctx = new Context(null);
+        File file = ctx.files.InternFile(source.toString());
+        FeatureReference outer = addReference(ctx, file, "A", 3, 7, 0, null);
+        addReference(ctx, file, "B", 4, 5, 1, outer);
+        ctx.processedDataHandler.SaveProcessedData(dir.toString());
+        for (java.io.File saved : dir.toFile().listFiles()) saved.deleteOnExit();
+        dir.toFile().deleteOnExit();
+
+        SkunkServer skunkServer = new SkunkServer();
+        skunkServer.loadProject(dir.toString());
+        server = skunkServer.start(0);
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/projects";
+    }
+
+    @AfterClass
+    public void stopServer() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    public void testListProjects() throws IOException {
+        HttpURLConnection c = open(baseUrl, "GET");
+        Assert.assertEquals(c.getResponseCode(), 200);
+        String body = read(c.getInputStream());
+        Assert.assertTrue(body.contains("\"name\": \"" + projectName + "\""), body);
+        Assert.assertTrue(body.contains("\"features\": 2"), body);
+    }
+
+    @Test
+    public void testDetect() throws IOException {
+        HttpURLConnection c = post(baseUrl + "/" + projectName + "/detect", "File_NestingSum=1\n");
+        Assert.assertEquals(c.getResponseCode(), 200);
+        String body = read(c.getInputStream());
+        Assert.assertTrue(body.contains("\"smellyFeatureConstantReferences\": 2"), body);
+        Assert.assertTrue(body.contains("\"ANNOTATIONFILE_NUMBERNESTINGSUM\""), body);
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        HttpURLConnection c = post(baseUrl + "/" + projectName + "/detect", "NoSuchThreshold=1\n");
+        Assert.assertEquals(c.getResponseCode(), 400);
+        Assert.assertTrue(read(c.getErrorStream()).contains("NoSuchThreshold"));
+        Assert.assertEquals(post(baseUrl + "/nosuchproject/detect", "").getResponseCode(), 404);
+        Assert.assertEquals(open(baseUrl + "/" + projectName + "/detect", "GET").getResponseCode(), 405);
+    }
+
+    private static HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        c.setRequestMethod(method);
+        return c;
+    }
+
+    private static HttpURLConnection post(String url, String body) throws IOException {
+        HttpURLConnection c = open(url, "POST");
+        c.setDoOutput(true);
+        try (OutputStream out = c.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return c;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream is = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = is.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static FeatureReference addReference(Context ctx, File file, String feature, int start, int end,
+                                                 int nestingDepth, FeatureReference parent) {
+        FeatureReference ref = new FeatureReference(file.filePath, start, end, nestingDepth, false);
+        Feature feat = ctx.featureExpressions.InternFeature(feature);
+        feat.AddReference(ref, file);
+        ref.SetParent(parent);
+        file.AddFeatureConstant(ref);
+        return ref;
+    }
+}
@@ -0,0 +1,92 @@
+package com.easy.detection.output;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+public class CsvTableWriterTest {
+
+    @DataProvider(name = "records")
+    public static Object[][] recordTestCases() {
+        return new Object[][]{
+                {new Object[]{"a", 1, 1.5f, true}, "a,1,1.5,true\r\n"}
+                , {new Object[]{"x,y", "z"}, "\"x,y\",z\r\n"}
+                , {new Object[]{"say \"hi\""}, "\"say \"\"hi\"\"\"\r\n"}
+                , {new Object[]{"line\nbreak"}, "\"line\nbreak\"\r\n"}
+                , {new Object[]{"", ""}, "\"\",\r\n"}
+                , {new Object[]{null, null}, ",\r\n"}
+                , {new Object[]{"trailing ", "x"}, "\"trailing \",x\r\n"}
+                , {new Object[]{"#ifdef A", "x"}, "\"#ifdef A\",x\r\n"}
+                , {new Object[]{"x", " leading"}, "x,\" leading\"\r\n"}
+                , {new Object[]{"x", "-1.0", -1.0f, 3L, 0.25d}, "x,-1.0,-1.0,3,0.25\r\n"}
+                , {new Object[]{"src/foo.c", "int foo(char *s, int n)"}, "src/foo.c,\"int foo(char *s, int n)\"\r\n"}
+        };
+    }
+
+    @Test(dataProvider = "records")
+    public void testPrintRecord(Object[] values, String expected) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvTableWriter csv = new CsvTableWriter(out)) {
+            csv.printRecord(values);
+        }
+        Assert.assertEquals(out.toString(), expected);
+    }
+
+    @Test
+    public void testPrimitiveValuesMatchBoxedValues() throws IOException {
+        StringWriter primitive = new StringWriter();
+        StringWriter boxed = new StringWriter();
+        try (CsvTableWriter p = new CsvTableWriter(primitive); CsvTableWriter b = new CsvTableWriter(boxed)) {
+            for (int i = 0; i < 10000; i++) {
+                float f = i / 7f;
+                p.value(i).value(f).value(i % 2 == 0).endRecord();
+                b.printRecord(Integer.valueOf(i), Float.valueOf(f), Boolean.valueOf(i % 2 == 0));
+            }
+        }
+        Assert.assertEquals(primitive.toString(), boxed.toString());
+        Assert.assertTrue(primitive.toString().startsWith("0,0.0,true\r\n1,0.14285715,false\r\n"));
+    }
+
+    @DataProvider(name = "firstValues")
+    public static Object[][] firstValueTestCases() {
+        return new Object[][]{
+                {"/tmp/x.c"}, {"_foo"}, {"__linux__"}, {"..\\a.c"}, {"-1"}, {"~x"}, {"+1"}, {"(x)"}, {"\u00e9t\u00e9"}
+                , {"a"}, {"Z9"}, {"0.5"}
+        };
+    }
+
+    @Test(dataProvider = "firstValues")
+    public void testFirstValueQuotedLikeCsvPrinter(String first) throws IOException {
+        Assert.assertEquals(printWithCsvTableWriter(first, first), printWithCsvPrinter(first, first));
+    }
+
+    @Test
+    public void testAllAsciiFirstCharactersQuotedLikeCsvPrinter() throws IOException {
+        for (char c = 0x20; c < 0x7F; c++) {
+            String value = c + "x";
+            Assert.assertEquals(printWithCsvTableWriter(value, value), printWithCsvPrinter(value, value), value);
+        }
+    }
+
+    private static String printWithCsvTableWriter(Object... values) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvTableWriter csv = new CsvTableWriter(out)) {
+            csv.printRecord(values);
+        }
+        return out.toString();
+    }
+
+    private static String printWithCsvPrinter(Object... values) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CSVPrinter csv = new CSVPrinter(out, CSVFormat.EXCEL)) {
+            csv.printRecord(Arrays.asList(values));
+        }
+        return out.toString();
+    }
+}
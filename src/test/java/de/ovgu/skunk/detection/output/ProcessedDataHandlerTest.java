@@ -0,0 +1,90 @@
+package com.easy.detection.output;
+
+import com.easy.detection.data.Context;
+import com.easy.detection.data.Feature;
+import com.easy.detection.data.FeatureReference;
+import com.easy.detection.data.File;
+import com.easy.detection.data.FilePath;
+import com.easy.detection.data.Method;
+import com.easy.util.OffHeapIntList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class ProcessedDataHandlerTest {
+
+    @Test
+    public void testRoundTripWithOffHeapLines() throws IOException {
+        Path source = Files.createTempFile("roundtrip", ".c");
+        source.toFile().deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 12; i++) lines.add("x = " + i + ";");
+        Files.write(source, lines);
+        Path dir = Files.createTempDirectory("processed");
+
+        Context ctx = new Context(null);
+        ctx.EnableOffHeapStorage();
+        File file = ctx.files.InternFile(source.toString());
+        FilePath fp = ctx.internFilePath(file.filePath);
+        Method meth = new Method(ctx, "int f(int x)", file.filePath, 2, 8, 1, "");
+        ctx.functions.AddFunctionToFile(fp, meth);
+        ctx.files.InternFunctionIntoExistingFile(fp, meth);
+        FeatureReference outer = addReference(ctx, file, meth, "A", 3, 7, 0, null);
+        FeatureReference inner = addReference(ctx, file, meth, "B", 4, 5, 1, outer);
+        Assert.assertTrue(meth.loac instanceof OffHeapIntList);
+        Assert.assertTrue(file.loac instanceof OffHeapIntList);
+        final int methodLoac = meth.GetLinesOfAnnotatedCode();
+        final int fileLoac = file.GetLinesOfAnnotatedCode();
+        Assert.assertEquals(methodLoac, 5);
+
+        ctx.processedDataHandler.SaveProcessedData(dir.toString());
+        for (java.io.File saved : dir.toFile().listFiles()) {
+            saved.deleteOnExit();
+            if (!saved.getName().endsWith(".gz")) continue;
+            String xml = gunzip(saved.toPath());
+            Assert.assertFalse(xml.contains("OffHeap"), saved.getName());
+            Assert.assertFalse(xml.contains("ByteBuffer"), saved.getName());
+        }
+
+        Context loaded = new Context(null);
+        loaded.processedDataHandler.LoadProcessedData(dir.toString());
+        Assert.assertEquals(loaded.functions.AllMethods().size(), 1);
+        Method loadedMeth = loaded.functions.AllMethods().get(0);
+        Assert.assertEquals(loadedMeth.GetLinesOfAnnotatedCode(), methodLoac);
+        Assert.assertEquals(loadedMeth.featureReferences.keySet(), meth.featureReferences.keySet());
+        Assert.assertEquals(loaded.files.AllFiles().size(), 1);
+        Assert.assertEquals(loaded.files.AllFiles().iterator().next().GetLinesOfAnnotatedCode(), fileLoac);
+        Assert.assertEquals(loaded.featureExpressions.GetFeatures().size(), 2);
+        Assert.assertNotNull(loaded.featureExpressions.GetFeatureConstant("B", inner.id));
+    }
+
+    private static FeatureReference addReference(Context ctx, File file, Method meth, String feature, int start,
+                                                 int end, int nestingDepth, FeatureReference parent) {
+        FeatureReference ref = new FeatureReference(file.filePath, start, end, nestingDepth, false);
+        Feature feat = ctx.featureExpressions.InternFeature(feature);
+        feat.AddReference(ref, file);
+        ref.SetParent(parent);
+        file.AddFeatureConstant(ref);
+        meth.AddFeatureConstant(ref);
+        return ref;
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
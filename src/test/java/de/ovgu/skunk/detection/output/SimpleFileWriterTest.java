@@ -0,0 +1,29 @@
+package com.easy.detection.output;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SimpleFileWriterTest {
+
+    @Test
+    public void testWriteCreatesMissingDirectories() throws IOException {
+        Path dir = Files.createTempDirectory("results");
+        File f = dir.resolve("missing").resolve("nested").resolve("out.csv").toFile();
+
+        SimpleFileWriter writer = new SimpleFileWriter();
+        writer.write(f, out -> out.write("a,b\r\n"));
+
+        Assert.assertEquals(new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8), "a,b\r\n");
+        Assert.assertEquals(writer.prettyFileNameList(), "out.csv");
+        f.delete();
+        f.getParentFile().delete();
+        f.getParentFile().getParentFile().delete();
+        dir.toFile().delete();
+    }
+}
@@ -0,0 +1,33 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class FlatIntGroupingMapTest {
+
+    @Test
+    public void testValuesAreGroupedByKeyInInsertionOrder() {
+        FlatIntGroupingMap.Builder<String> builder = new FlatIntGroupingMap.Builder<>(4);
+        builder.put(2, "a");
+        builder.put(0, "b");
+        builder.put(2, "c");
+        builder.put(3, "d");
+        builder.put(2, "e");
+        FlatIntGroupingMap<String> map = builder.build();
+
+        Assert.assertEquals(map.numberOfKeys(), 4);
+        Assert.assertEquals(map.get(0), Collections.singletonList("b"));
+        Assert.assertEquals(map.get(1), Collections.emptyList());
+        Assert.assertEquals(map.get(2), Arrays.asList("a", "c", "e"));
+        Assert.assertEquals(map.get(3), Collections.singletonList("d"));
+        Assert.assertEquals(map.size(2), 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testKeyOutOfRange() {
+        new FlatIntGroupingMap.Builder<String>(2).put(2, "a");
+    }
+}
@@ -0,0 +1,23 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IntObjectHashMapTest {
+
+    @Test
+    public void testGrowsAndReplaces() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int i = -500; i < 500; i++) {
+            Assert.assertNull(map.put(i * 7, i));
+        }
+        Assert.assertEquals(map.size(), 1000);
+        for (int i = -500; i < 500; i++) {
+            Assert.assertEquals(map.get(i * 7), Integer.valueOf(i));
+        }
+        Assert.assertFalse(map.containsKey(1));
+        Assert.assertEquals(map.put(7, 42), Integer.valueOf(1));
+        Assert.assertEquals(map.get(7), Integer.valueOf(42));
+        Assert.assertEquals(map.size(), 1000);
+    }
+}
@@ -0,0 +1,61 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class OffHeapIntListTest {
+
+    @Test
+    public void testBehavesLikeArrayList() {
+        OffHeapIntArena arena = new OffHeapIntArena();
+        OffHeapIntList a = new OffHeapIntList(arena);
+        OffHeapIntList b = new OffHeapIntList(arena);
+        List<Integer> expectedA = new ArrayList<>();
+        List<Integer> expectedB = new ArrayList<>();
+        // interleaved growth, so that the segments of both lists alternate in the arena
+        for (int i = 0; i < 1000; i++) {
+            a.add(i * 3);
+            expectedA.add(i * 3);
+            if (i % 2 == 0) {
+                b.addInt(-i);
+                expectedB.add(-i);
+            }
+        }
+        Assert.assertEquals(a, expectedA);
+        Assert.assertEquals(b, expectedB);
+        Assert.assertTrue(a.contains(2997));
+        Assert.assertFalse(a.contains(2998));
+        Assert.assertTrue(b.containsInt(-998));
+        Assert.assertEquals(a.getInt(500), 1500);
+        a.clear();
+        Assert.assertTrue(a.isEmpty());
+        a.add(7);
+        Assert.assertEquals(a, Collections.singletonList(7));
+        Assert.assertTrue(arena.reservedBytes() > 0);
+    }
+
+    @Test
+    public void testSegmentsDoNotSpanChunks() {
+        OffHeapIntArena arena = new OffHeapIntArena();
+        int first = arena.allocate(OffHeapIntArena.MAX_SEGMENT_SIZE - 1);
+        int second = arena.allocate(2);
+        arena.set(first + OffHeapIntArena.MAX_SEGMENT_SIZE - 2, 1);
+        arena.set(second, 2);
+        arena.set(second + 1, 3);
+        Assert.assertEquals(arena.get(first + OffHeapIntArena.MAX_SEGMENT_SIZE - 2), 1);
+        Assert.assertEquals(arena.get(second), 2);
+        Assert.assertEquals(arena.get(second + 1), 3);
+        Assert.assertEquals(arena.reservedBytes(), 2L * OffHeapIntArena.MAX_SEGMENT_SIZE * 4);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetBeyondSize() {
+        OffHeapIntList list = new OffHeapIntList(new OffHeapIntArena());
+        list.add(1);
+        list.get(1);
+    }
+}
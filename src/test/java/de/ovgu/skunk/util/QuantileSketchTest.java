@@ -0,0 +1,60 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class QuantileSketchTest {
+
+    @Test
+    public void testExactForFewValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int v : new int[]{7, 3, 9, 1, 5, 2, 8, 4, 6, 10}) {
+            sketch.add(v);
+        }
+        Assert.assertEquals(sketch.count(), 10L);
+        Assert.assertEquals(sketch.quantile(0.0), 1.0);
+        Assert.assertEquals(sketch.quantile(0.5), 5.0);
+        Assert.assertEquals(sketch.quantile(0.9), 9.0);
+        Assert.assertEquals(sketch.quantile(0.95), 10.0);
+        Assert.assertEquals(sketch.quantile(1.0), 10.0);
+    }
+
+    @Test
+    public void testRankErrorOfLargeStream() {
+        final int n = 200000;
+        Random random = new Random(42);
+        double[] values = new double[n];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextGaussian() * 100;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        for (double q : new double[]{0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99}) {
+            double estimate = sketch.quantile(q);
+            int rank = Arrays.binarySearch(values, estimate);
+            Assert.assertTrue(rank >= 0, "estimate must be one of the values");
+            Assert.assertTrue(Math.abs(rank - q * n) < 0.01 * n, "rank error too large for q=" + q + ": " + rank);
+        }
+    }
+
+    @Test
+    public void testSameStreamSameQuantiles() {
+        QuantileSketch a = new QuantileSketch(16);
+        QuantileSketch b = new QuantileSketch(16);
+        for (int i = 0; i < 10000; i++) {
+            a.add((i * 7919) % 10007);
+            b.add((i * 7919) % 10007);
+        }
+        Assert.assertEquals(a.quantile(0.5), b.quantile(0.5));
+        Assert.assertEquals(a.quantile(0.95), b.quantile(0.95));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testEmptySketch() {
+        new QuantileSketch().quantile(0.5);
+    }
+}
@@ -0,0 +1,69 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+public class SourceLineScannerTest {
+
+    @DataProvider(name = "sources")
+    public static Object[][] sourceTestCases() {
+        return new Object[][]{
+                {"", new int[]{}, 0}
+                , {"int a;", new int[]{}, 1}
+                , {"int a;\n\n// c\n/* a\n b */\nint b; /* c\n d */\n", new int[]{1, 2, 3, 4, 6}, 7}
+                , {"  \t\nint a;\n", new int[]{0}, 2}
+                , {"a\r\n\r\nb\rc", new int[]{1}, 4}
+                , {"char *s = \"/*\";\nint x;\n", new int[]{}, 2}
+                , {"char c = '\"'; /* x\n*/\n", new int[]{1}, 2}
+                , {"x = a / b;\n/\n", new int[]{}, 2}
+                , {"/* a */ int x;\n/**/\n", new int[]{1}, 2}
+                , {"/*/ x\n*/ y\n", new int[]{0}, 2}
+                , {"#ifdef A // comment\n#endif\n", new int[]{}, 2}
+        };
+    }
+
+    @Test(dataProvider = "sources")
+    public void testScan(String source, int[] expectedEmpty, int expectedLines) {
+        SourceLineScanner.Lines lines = SourceLineScanner.scan(source.getBytes(StandardCharsets.UTF_8));
+        BitSet expected = new BitSet();
+        for (int i : expectedEmpty) {
+            expected.set(i);
+        }
+        Assert.assertEquals(lines.emptyLines, expected);
+        Assert.assertEquals(lines.lines, expectedLines);
+        Assert.assertEquals(lines.codeLines, expectedLines - expectedEmpty.length);
+    }
+
+    @Test
+    public void testFileSpanningSeveralBuffersMatchesBytes() throws IOException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            switch (i % 5) {
+                case 0: source.append("int x").append(i).append(" = 1 / 2; /* comment\r\n"); break;
+                case 1: source.append("   still comment */\r\n"); break;
+                case 2: source.append("\r\n"); break;
+                case 3: source.append("// line comment\r\n"); break;
+                default: source.append("f(\"/*\");\r\n"); break;
+            }
+        }
+        byte[] bytes = source.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("scanner", ".c");
+        try {
+            Files.write(file, bytes);
+            SourceLineScanner.Lines fromFile = SourceLineScanner.scan(file);
+            SourceLineScanner.Lines fromBytes = SourceLineScanner.scan(bytes);
+            Assert.assertEquals(fromFile.emptyLines, fromBytes.emptyLines);
+            Assert.assertEquals(fromFile.lines, 20000);
+            Assert.assertEquals(fromFile.codeLines, 8000);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SourceScanPrefetcherTest {
+
+    @Test
+    public void testQueuesAtMostCapacityFiles() throws IOException {
+        Path a = Files.createTempFile("prefetch", ".c");
+        Path b = Files.createTempFile("prefetch", ".c");
+        try (SourceScanPrefetcher prefetcher = new SourceScanPrefetcher(1, 1)) {
+            Files.write(a, "int a;\n\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(b, "int b;\n".getBytes(StandardCharsets.UTF_8));
+            Assert.assertTrue(prefetcher.prefetch(a.toString()));
+            Assert.assertTrue(prefetcher.prefetch(a.toString()));
+            Assert.assertTrue(prefetcher.isFull());
+            Assert.assertFalse(prefetcher.prefetch(b.toString()));
+            Assert.assertNull(prefetcher.take(b.toString()));
+            Assert.assertEquals(prefetcher.take(a.toString()).lines, 2);
+            Assert.assertTrue(prefetcher.prefetch(b.toString()));
+            Assert.assertEquals(prefetcher.take(b.toString()).codeLines, 1);
+        } finally {
+            Files.delete(a);
+            Files.delete(b);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.easy.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TopKTest {
+
+    @Test
+    public void testKeepsHighestScoresInDescendingOrder() {
+        TopK<String> top = new TopK<>(3);
+        top.offer(1f, "a");
+        top.offer(5f, "b");
+        top.offer(3f, "c");
+        top.offer(4f, "d");
+        top.offer(0f, "e");
+
+        Assert.assertEquals(top.size(), 3);
+        Assert.assertEquals(top.toSortedList(), Arrays.asList("b", "d", "c"));
+    }
+
+    @Test
+    public void testTiesKeepOfferOrder() {
+        TopK<String> top = new TopK<>(2);
+        top.offer(2f, "a");
+        top.offer(2f, "b");
+        top.offer(2f, "c");
+
+        Assert.assertEquals(top.toSortedList(), Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void testSameAsPrefixOfStableSort() {
+        Random random = new Random(1);
+        List<Integer> items = new ArrayList<>();
+        float[] scores = new float[1000];
+        TopK<Integer> top = new TopK<>(50);
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextInt(100);
+            items.add(i);
+            top.offer(scores[i], i);
+        }
+        Collections.sort(items, (a, b) -> Float.compare(scores[b], scores[a]));
+
+        Assert.assertEquals(top.toSortedList(), items.subList(0, 50));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsEmptyLimit() {
+        new TopK<String>(0);
+    }
+}